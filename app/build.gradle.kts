@@ -54,6 +54,14 @@ tasks.named<Test>("test") {
     useJUnitPlatform()
 }
 
+// Benchmarks de consola del grafo (BenchmarkGrafo, en las fuentes de test para que no vaya en el jar)
+tasks.register<JavaExec>("benchmark") {
+    group = "verification"
+    description = "Ejecuta BenchmarkGrafo; los argumentos se pasan con --args"
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("proyectoaeropuerto.BenchmarkGrafo")
+}
+
 tasks.withType<ShadowJar> {
     archiveBaseName.set("Aeropuerto")
     archiveClassifier.set("")
@@ -3,10 +3,17 @@ package proyectoaeropuerto;
 import java.util.Objects;
 
 public class Aeropuerto implements Comparable<Aeropuerto> {
+    private static final double RADIO_TIERRA_KM = 6371.0;
+
     //Atributos de identificación de un aeropuerto
     private String codigoIATA;
-    private String nombre;
-    private String ciudad;
+    //Nombre y ciudad se reemplazan juntos (copia al escribir): quien lee desde otro hilo ve siempre
+    //un par completo, nunca el nombre nuevo con la ciudad anterior
+    private volatile Descripcion descripcion;
+
+    //Coordenadas geograficas en grados (opcionales, NaN si no se conocen)
+    private double latitud = Double.NaN;
+    private double longitud = Double.NaN;
 
     //Atributo a utlizar para mostrar los nodos en la interfaz (clase ViewController)
     public float x, y;
@@ -14,8 +21,23 @@ public class Aeropuerto implements Comparable<Aeropuerto> {
     //Constructor
     public Aeropuerto(String codigoIATA, String nombre, String ciudad) {
         this.codigoIATA = codigoIATA;
-        this.nombre = nombre;
-        this.ciudad = ciudad;
+        this.descripcion = new Descripcion(nombre, ciudad);
+    }
+
+    private static final class Descripcion {
+        final String nombre;
+        final String ciudad;
+
+        Descripcion(String nombre, String ciudad) {
+            this.nombre = nombre;
+            this.ciudad = ciudad;
+        }
+    }
+
+    public Aeropuerto(String codigoIATA, String nombre, String ciudad, double latitud, double longitud) {
+        this(codigoIATA, nombre, ciudad);
+        this.latitud = latitud;
+        this.longitud = longitud;
     }
 
     //Getters y setters
@@ -24,11 +46,11 @@ public class Aeropuerto implements Comparable<Aeropuerto> {
     }
 
     public String getNombre() {
-        return nombre;
+        return descripcion.nombre;
     }
 
     public String getCiudad() {
-        return ciudad;
+        return descripcion.ciudad;
     }
 
     public void setCodigoIATA(String codigoIATA) {
@@ -36,11 +58,36 @@ public class Aeropuerto implements Comparable<Aeropuerto> {
     }
 
     public void setNombre(String nombre) {
-        this.nombre = nombre;
+        this.descripcion = new Descripcion(nombre, descripcion.ciudad);
     }
 
     public void setCiudad(String ciudad) {
-        this.ciudad = ciudad;
+        this.descripcion = new Descripcion(descripcion.nombre, ciudad);
+    }
+
+    public void setNombreYCiudad(String nombre, String ciudad) {
+        this.descripcion = new Descripcion(nombre, ciudad);
+    }
+
+    public double getLatitud() {
+        return latitud;
+    }
+
+    public double getLongitud() {
+        return longitud;
+    }
+
+    public boolean tieneCoordenadas() {
+        return !Double.isNaN(latitud) && !Double.isNaN(longitud);
+    }
+
+    //Distancia de gran circulo (formula de haversine) en kilometros entre dos puntos dados en grados
+    public static double distanciaGranCirculo(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
     }
 
     //Define el orden natural de Aeropuertos por su codigo IATA
@@ -65,7 +112,7 @@ public class Aeropuerto implements Comparable<Aeropuerto> {
 
     @Override
     public String toString() {
-        return nombre + " (" + codigoIATA + ")";
+        return descripcion.nombre + " (" + codigoIATA + ")";
     }
 }
 
@@ -1,127 +1,240 @@
 package proyectoaeropuerto;
 
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
 
-public class ArbolAVL<T extends Comparable<T>> {
-    private NodoAVL raiz;
+public class ArbolAVL<T extends Comparable<T>> implements Iterable<T> {
+    //Arbol persistente: los nodos no se modifican nunca. Insertar o eliminar copia solo el camino desde la
+    //raiz hasta el cambio (O(log n) nodos nuevos) y publica la nueva raiz de una vez, asi que los lectores
+    //recorren sin bloqueos una version completa y consistente aunque otro hilo este escribiendo.
+    //Las escrituras se hacen de a una (synchronized).
+    private volatile NodoAVL raiz;
     private Comparator<T> comparador;
+    //Vista de solo lectura de los datos en orden, sin copiarlos; cada recorrido ve la version de ese momento
+    private final Collection<T> vista = new AbstractCollection<T>() {
+        @Override
+        public Iterator<T> iterator() {
+            return ArbolAVL.this.iterator();
+        }
+
+        @Override
+        public int size() {
+            return tamano(raiz);
+        }
+    };
 
     public ArbolAVL(Comparator<T> comparador) {
         this.comparador = comparador;
     }
 
+    //Arbol con los datos dados, armado de una vez en O(n) si ya vienen ordenados (O(n log n) si no).
+    //Los repetidos segun el comparador se ignoran, quedando el primero
+    public ArbolAVL(Comparator<T> comparador, Collection<? extends T> datos) {
+        this.comparador = comparador;
+        List<T> ordenados = ordenarSinRepetidos(datos);
+        this.raiz = construir(ordenados, 0, ordenados.size());
+    }
+
     private class NodoAVL {
-        T data;
-        NodoAVL izquierdo;
-        NodoAVL derecho;
-        int altura;
-        NodoAVL(T data) {
+        final T data;
+        final NodoAVL izquierdo;
+        final NodoAVL derecho;
+        final int altura;
+        //Nodos del subarbol (incluido este), para las consultas por posicion
+        final int tamano;
+        NodoAVL(T data, NodoAVL izquierdo, NodoAVL derecho) {
             this.data = data;
-            this.altura = 1;
+            this.izquierdo = izquierdo;
+            this.derecho = derecho;
+            this.altura = Math.max(altura(izquierdo), altura(derecho)) + 1;
+            this.tamano = tamano(izquierdo) + tamano(derecho) + 1;
         }
     }
 
-    //Metodos vistos en clase
+    //Metodos vistos en clase, adaptados para crear nodos nuevos en lugar de modificar los existentes
     private int altura(NodoAVL n) {
         return (n == null) ? 0 : n.altura;
     }
 
+    private int tamano(NodoAVL n) {
+        return (n == null) ? 0 : n.tamano;
+    }
+
     private int getBalance(NodoAVL n) {
         return (n == null) ? 0 : altura(n.derecho) - altura(n.izquierdo);
     }
 
     private NodoAVL rotacionDerecha(NodoAVL y) {
         NodoAVL x = y.izquierdo;
-        NodoAVL T2 = x.derecho;
-        x.derecho = y;
-        y.izquierdo = T2;
-        y.altura = Math.max(altura(y.izquierdo), altura(y.derecho)) + 1;
-        x.altura = Math.max(altura(x.izquierdo), altura(x.derecho)) + 1;
-        return x;
+        return new NodoAVL(x.data, x.izquierdo, new NodoAVL(y.data, x.derecho, y.derecho));
     }
 
     private NodoAVL rotacionIzquierda(NodoAVL x) {
         NodoAVL y = x.derecho;
-        NodoAVL T2 = y.izquierdo;
-        y.izquierdo = x;
-        x.derecho = T2;
-        x.altura = Math.max(altura(x.izquierdo), altura(x.derecho)) + 1;
-        y.altura = Math.max(altura(y.izquierdo), altura(y.derecho)) + 1;
-        return y;
+        return new NodoAVL(y.data, new NodoAVL(x.data, x.izquierdo, y.izquierdo), y.derecho);
+    }
+
+    //Nodo nuevo con esos datos e hijos, rebalanceado (las alturas de los hijos difieren en a lo sumo 2)
+    private NodoAVL balancear(T data, NodoAVL izquierdo, NodoAVL derecho) {
+        NodoAVL nodo = new NodoAVL(data, izquierdo, derecho);
+        int balance = getBalance(nodo);
+        if (balance < -1) {
+            if (getBalance(izquierdo) > 0) {
+                nodo = new NodoAVL(data, rotacionIzquierda(izquierdo), derecho);
+            }
+            return rotacionDerecha(nodo);
+        }
+        if (balance > 1) {
+            if (getBalance(derecho) < 0) {
+                nodo = new NodoAVL(data, izquierdo, rotacionDerecha(derecho));
+            }
+            return rotacionIzquierda(nodo);
+        }
+        return nodo;
     }
 
-    public void insertar(T data) {
+    public synchronized void insertar(T data) {
         raiz = insertarRecursivo(raiz, data);
     }
 
+    //Devuelve el mismo nodo si el dato ya estaba (no se copia nada)
     private NodoAVL insertarRecursivo(NodoAVL nodo, T data) {
-        if (nodo == null) return new NodoAVL(data);
+        if (nodo == null) return new NodoAVL(data, null, null);
         int cmp = comparador.compare(data, nodo.data);
-        if (cmp < 0) nodo.izquierdo = insertarRecursivo(nodo.izquierdo, data);
-        else if (cmp > 0) nodo.derecho = insertarRecursivo(nodo.derecho, data);
-        else return nodo;
+        if (cmp < 0) {
+            NodoAVL izquierdo = insertarRecursivo(nodo.izquierdo, data);
+            return (izquierdo == nodo.izquierdo) ? nodo : balancear(nodo.data, izquierdo, nodo.derecho);
+        }
+        if (cmp > 0) {
+            NodoAVL derecho = insertarRecursivo(nodo.derecho, data);
+            return (derecho == nodo.derecho) ? nodo : balancear(nodo.data, nodo.izquierdo, derecho);
+        }
+        return nodo;
+    }
 
-        nodo.altura = 1 + Math.max(altura(nodo.izquierdo), altura(nodo.derecho));
-        int balance = getBalance(nodo);
+    //Inserta un lote publicando una sola raiz. Si el lote es grande frente al arbol, en lugar de insertar
+    //uno por uno se mezclan en orden los datos actuales con los del lote y se arma el arbol de nuevo,
+    //en O(n + k) (mas ordenar el lote si no viene ordenado). Como en insertar, si un dato ya estaba se
+    //conserva el que estaba
+    public synchronized void insertarTodos(Collection<? extends T> datos) {
+        if (datos.isEmpty()) return;
+        List<T> lote = ordenarSinRepetidos(datos);
+        NodoAVL actual = raiz;
+        int n = tamano(actual);
+        // Cada insercion copia un camino de ~altura nodos; rearmar crea n + k
+        if ((long) lote.size() * Math.max(altura(actual), 1) <= n + lote.size()) {
+            for (T data : lote) {
+                actual = insertarRecursivo(actual, data);
+            }
+            raiz = actual;
+            return;
+        }
+        List<T> mezcla = new ArrayList<>(n + lote.size());
+        Iterator<T> existentes = iteradorEnOrden(actual);
+        T existente = existentes.hasNext() ? existentes.next() : null;
+        for (T data : lote) {
+            int cmp = -1;
+            while (existente != null && (cmp = comparador.compare(existente, data)) < 0) {
+                mezcla.add(existente);
+                existente = existentes.hasNext() ? existentes.next() : null;
+            }
+            if (existente == null || cmp > 0) {
+                mezcla.add(data);
+            }
+        }
+        while (existente != null) {
+            mezcla.add(existente);
+            existente = existentes.hasNext() ? existentes.next() : null;
+        }
+        raiz = construir(mezcla, 0, mezcla.size());
+    }
 
-        if (balance < -1 && comparador.compare(data, nodo.izquierdo.data) < 0) return rotacionDerecha(nodo);
-        if (balance > 1 && comparador.compare(data, nodo.derecho.data) > 0) return rotacionIzquierda(nodo);
-        if (balance < -1 && comparador.compare(data, nodo.izquierdo.data) > 0) {
-            nodo.izquierdo = rotacionIzquierda(nodo.izquierdo);
-            return rotacionDerecha(nodo);
+    //Copia de los datos en orden y sin repetidos; solo ordena si hace falta
+    private List<T> ordenarSinRepetidos(Collection<? extends T> datos) {
+        List<T> lista = new ArrayList<>(datos);
+        boolean ordenada = true;
+        for (int i = 1; i < lista.size() && ordenada; i++) {
+            ordenada = comparador.compare(lista.get(i - 1), lista.get(i)) < 0;
         }
-        if (balance > 1 && comparador.compare(data, nodo.derecho.data) < 0) {
-            nodo.derecho = rotacionDerecha(nodo.derecho);
-            return rotacionIzquierda(nodo);
+        if (ordenada) return lista;
+        // El orden es estable, asi que entre repetidos queda primero el primero del lote
+        lista.sort(comparador);
+        int unicos = 0;
+        for (int i = 0; i < lista.size(); i++) {
+            if (unicos == 0 || comparador.compare(lista.get(unicos - 1), lista.get(i)) != 0) {
+                lista.set(unicos++, lista.get(i));
+            }
         }
-        return nodo;
+        return lista.subList(0, unicos);
+    }
+
+    //Arbol perfectamente balanceado con datos[desde, hasta), que deben estar ordenados y sin repetidos.
+    //Las mitades difieren a lo sumo en un dato, asi que cumple la condicion AVL sin rotaciones
+    private NodoAVL construir(List<T> datos, int desde, int hasta) {
+        if (desde >= hasta) return null;
+        int medio = (desde + hasta) >>> 1;
+        return new NodoAVL(datos.get(medio), construir(datos, desde, medio), construir(datos, medio + 1, hasta));
     }
 
     public T buscar(T dataKey) {
-        NodoAVL nodo = buscarRecursivo(raiz, dataKey);
-        return (nodo != null) ? nodo.data : null;
+        NodoAVL nodo = raiz;
+        while (nodo != null) {
+            int cmp = comparador.compare(dataKey, nodo.data);
+            if (cmp == 0) return nodo.data;
+            nodo = (cmp < 0) ? nodo.izquierdo : nodo.derecho;
+        }
+        return null;
     }
 
-    private NodoAVL buscarRecursivo(NodoAVL nodo, T dataKey) {
-        if (nodo == null) return null;
-        int cmp = comparador.compare(dataKey, nodo.data);
-        if (cmp == 0) return nodo;
-        return cmp < 0 ? buscarRecursivo(nodo.izquierdo, dataKey) : buscarRecursivo(nodo.derecho, dataKey);
+    //Busca por una clave sin construir un objeto T de prueba. extractor debe dar la clave por la que
+    //ordena el comparador del arbol (por ejemplo Aeropuerto::getCodigoIATA)
+    public <K extends Comparable<? super K>> T buscarPorClave(K clave, Function<? super T, ? extends K> extractor) {
+        NodoAVL nodo = raiz;
+        while (nodo != null) {
+            int cmp = clave.compareTo(extractor.apply(nodo.data));
+            if (cmp == 0) return nodo.data;
+            nodo = (cmp < 0) ? nodo.izquierdo : nodo.derecho;
+        }
+        return null;
     }
 
-    public void eliminar(T data) {
+    public int getTamano() {
+        return tamano(raiz);
+    }
+
+    public synchronized void eliminar(T data) {
         raiz = eliminarRecursivo(raiz, data);
     }
 
+    //Quita anterior e inserta nuevo publicando una sola raiz: ningun lector ve el arbol sin ninguno de los dos
+    public synchronized void reemplazar(T anterior, T nuevo) {
+        raiz = insertarRecursivo(eliminarRecursivo(raiz, anterior), nuevo);
+    }
+
+    //Devuelve el mismo nodo si el dato no estaba
     private NodoAVL eliminarRecursivo(NodoAVL nodo, T data) {
         if (nodo == null) return null;
         int cmp = comparador.compare(data, nodo.data);
-        if (cmp < 0) nodo.izquierdo = eliminarRecursivo(nodo.izquierdo, data);
-        else if (cmp > 0) nodo.derecho = eliminarRecursivo(nodo.derecho, data);
-        else {
-            if ((nodo.izquierdo == null) || (nodo.derecho == null)) {
-                nodo = (nodo.izquierdo != null) ? nodo.izquierdo : nodo.derecho;
-            } else {
-                NodoAVL temp = encontrarNodoMinimo(nodo.derecho);
-                nodo.data = temp.data;
-                nodo.derecho = eliminarRecursivo(nodo.derecho, temp.data);
-            }
+        if (cmp < 0) {
+            NodoAVL izquierdo = eliminarRecursivo(nodo.izquierdo, data);
+            return (izquierdo == nodo.izquierdo) ? nodo : balancear(nodo.data, izquierdo, nodo.derecho);
         }
-        if (nodo == null) return null;
-        nodo.altura = Math.max(altura(nodo.izquierdo), altura(nodo.derecho)) + 1;
-        int balance = getBalance(nodo);
-        if (balance < -1 && getBalance(nodo.izquierdo) <= 0) return rotacionDerecha(nodo);
-        if (balance < -1 && getBalance(nodo.izquierdo) > 0) {
-            nodo.izquierdo = rotacionIzquierda(nodo.izquierdo);
-            return rotacionDerecha(nodo);
-        }
-        if (balance > 1 && getBalance(nodo.derecho) >= 0) return rotacionIzquierda(nodo);
-        if (balance > 1 && getBalance(nodo.derecho) < 0) {
-            nodo.derecho = rotacionDerecha(nodo.derecho);
-            return rotacionIzquierda(nodo);
+        if (cmp > 0) {
+            NodoAVL derecho = eliminarRecursivo(nodo.derecho, data);
+            return (derecho == nodo.derecho) ? nodo : balancear(nodo.data, nodo.izquierdo, derecho);
         }
-        return nodo;
+        if (nodo.izquierdo == null) return nodo.derecho;
+        if (nodo.derecho == null) return nodo.izquierdo;
+        // Dos hijos: el sucesor ocupa su lugar
+        NodoAVL sucesor = encontrarNodoMinimo(nodo.derecho);
+        return balancear(sucesor.data, nodo.izquierdo, eliminarRecursivo(nodo.derecho, sucesor.data));
     }
 
     private NodoAVL encontrarNodoMinimo(NodoAVL nodo) {
@@ -132,19 +245,185 @@ public class ArbolAVL<T extends Comparable<T>> {
         return actual;
     }
 
-    //Entrega los nodos del arbol en forma de lista
+    //Entrega los nodos del arbol en forma de lista (una copia; para recorrerlos basta con getVista())
     public LinkedList<T> getDatosEnOrden() {
         LinkedList<T> lista = new LinkedList<>();
-        inOrderRecursivo(raiz, lista);
+        for (T data : this) {
+            lista.add(data);
+        }
         return lista;
     }
-    
-    //Recorre el arbol en "EnOrden" para agregarlos a la lista
-    private void inOrderRecursivo(NodoAVL nodo, LinkedList<T> lista) {
-        if (nodo != null) {
-            inOrderRecursivo(nodo.izquierdo, lista);
-            lista.add(nodo.data);
-            inOrderRecursivo(nodo.derecho, lista);
+
+    //Los datos en orden como coleccion de solo lectura respaldada por el arbol: no copia nada y
+    //refleja los cambios posteriores (cada recorrido usa la version vigente al empezar)
+    public Collection<T> getVista() {
+        return vista;
+    }
+
+    //Coleccion de solo lectura fija en la version actual: los cambios posteriores no la afectan
+    public Collection<T> getInstantanea() {
+        NodoAVL version = raiz;
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return iteradorEnOrden(version);
+            }
+
+            @Override
+            public int size() {
+                return tamano(version);
+            }
+        };
+    }
+
+    //Recorrido "EnOrden" iterativo sobre la version vigente al llamarlo; no le afectan los cambios posteriores
+    @Override
+    public Iterator<T> iterator() {
+        return iteradorEnOrden(raiz);
+    }
+
+    private Iterator<T> iteradorEnOrden(NodoAVL version) {
+        IteradorEnOrden iterador = new IteradorEnOrden(version);
+        iterador.cima = apilarIzquierdos(version, iterador.pila, 0);
+        return iterador;
+    }
+
+    //Recorrido en orden que empieza en el primer dato cuya clave es >= clave. El orden de las claves
+    //debe coincidir con el del arbol (extractor da la clave por la que ordena el comparador)
+    public <K> Iterator<T> iteradorDesde(K clave, Function<? super T, ? extends K> extractor, Comparator<? super K> orden) {
+        NodoAVL nodo = raiz;
+        IteradorEnOrden iterador = new IteradorEnOrden(nodo);
+        // Se apilan los nodos del camino desde los que aun falta visitar el propio nodo y su derecha
+        while (nodo != null) {
+            if (orden.compare(extractor.apply(nodo.data), clave) >= 0) {
+                iterador.pila[iterador.cima++] = nodo;
+                nodo = nodo.izquierdo;
+            } else {
+                nodo = nodo.derecho;
+            }
+        }
+        return iterador;
+    }
+
+    //Primer dato con clave >= clave (techo), o null
+    public <K> T techo(K clave, Function<? super T, ? extends K> extractor, Comparator<? super K> orden) {
+        T resultado = null;
+        NodoAVL nodo = raiz;
+        while (nodo != null) {
+            if (orden.compare(extractor.apply(nodo.data), clave) >= 0) {
+                resultado = nodo.data;
+                nodo = nodo.izquierdo;
+            } else {
+                nodo = nodo.derecho;
+            }
+        }
+        return resultado;
+    }
+
+    //Ultimo dato con clave <= clave (piso), o null
+    public <K> T piso(K clave, Function<? super T, ? extends K> extractor, Comparator<? super K> orden) {
+        T resultado = null;
+        NodoAVL nodo = raiz;
+        while (nodo != null) {
+            if (orden.compare(extractor.apply(nodo.data), clave) <= 0) {
+                resultado = nodo.data;
+                nodo = nodo.derecho;
+            } else {
+                nodo = nodo.izquierdo;
+            }
+        }
+        return resultado;
+    }
+
+    //Datos con desde <= clave < hasta, en orden; O(log n + k)
+    public <K> List<T> rango(K desde, K hasta, Function<? super T, ? extends K> extractor, Comparator<? super K> orden) {
+        List<T> resultado = new ArrayList<>();
+        for (Iterator<T> it = iteradorDesde(desde, extractor, orden); it.hasNext(); ) {
+            T data = it.next();
+            if (orden.compare(extractor.apply(data), hasta) >= 0) break;
+            resultado.add(data);
+        }
+        return resultado;
+    }
+
+    //Hasta maximo datos cuya clave empieza con prefijo, en orden; O(log n + k). Con ignorarMayusculas
+    //el arbol debe estar ordenado por la clave con String.CASE_INSENSITIVE_ORDER
+    public List<T> buscarPorPrefijo(String prefijo, Function<? super T, String> extractor, boolean ignorarMayusculas, int maximo) {
+        List<T> resultado = new ArrayList<>();
+        Comparator<String> orden = ignorarMayusculas ? String.CASE_INSENSITIVE_ORDER : Comparator.naturalOrder();
+        for (Iterator<T> it = iteradorDesde(prefijo, extractor, orden); it.hasNext() && resultado.size() < maximo; ) {
+            T data = it.next();
+            if (!extractor.apply(data).regionMatches(ignorarMayusculas, 0, prefijo, 0, prefijo.length())) break;
+            resultado.add(data);
+        }
+        return resultado;
+    }
+
+    //Cantidad de datos con clave < clave (posicion que ocuparia en el recorrido en orden); O(log n)
+    public <K> int posicion(K clave, Function<? super T, ? extends K> extractor, Comparator<? super K> orden) {
+        int posicion = 0;
+        NodoAVL nodo = raiz;
+        while (nodo != null) {
+            if (orden.compare(extractor.apply(nodo.data), clave) < 0) {
+                posicion += tamano(nodo.izquierdo) + 1;
+                nodo = nodo.derecho;
+            } else {
+                nodo = nodo.izquierdo;
+            }
+        }
+        return posicion;
+    }
+
+    //Dato en la posicion indice (desde 0) del recorrido en orden; O(log n)
+    public T obtener(int indice) {
+        NodoAVL nodo = raiz;
+        if (indice < 0 || indice >= tamano(nodo)) {
+            throw new IndexOutOfBoundsException("Indice " + indice + " fuera de rango (tamaño " + tamano(nodo) + ")");
+        }
+        while (true) {
+            int izquierdos = tamano(nodo.izquierdo);
+            if (indice < izquierdos) {
+                nodo = nodo.izquierdo;
+            } else if (indice == izquierdos) {
+                return nodo.data;
+            } else {
+                indice -= izquierdos + 1;
+                nodo = nodo.derecho;
+            }
+        }
+    }
+
+    //La pila guarda el camino hacia el siguiente nodo y mide a lo sumo la altura del arbol
+    private class IteradorEnOrden implements Iterator<T> {
+        private final NodoAVL[] pila;
+        private int cima;
+
+        //No se puede crear un arreglo del tipo generico NodoAVL; se crea sin parametros y se convierte
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        IteradorEnOrden(NodoAVL version) {
+            pila = (NodoAVL[]) new ArbolAVL.NodoAVL[altura(version)];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cima > 0;
+        }
+
+        @Override
+        public T next() {
+            if (cima == 0) throw new NoSuchElementException();
+            NodoAVL nodo = pila[--cima];
+            cima = apilarIzquierdos(nodo.derecho, pila, cima);
+            return nodo.data;
+        }
+    }
+
+    //Apila nodo y sus descendientes por la izquierda; devuelve la nueva cima
+    private int apilarIzquierdos(NodoAVL nodo, NodoAVL[] pila, int cima) {
+        while (nodo != null) {
+            pila[cima++] = nodo;
+            nodo = nodo.izquierdo;
         }
+        return cima;
     }
 }
@@ -0,0 +1,118 @@
+package proyectoaeropuerto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+//Cache LRU de resultados de busqueda de rutas, por (origen, destino, criterio, algoritmo, k).
+//Cada entrada vale solo para la version del grafo con la que se calculo: al llegar una version mas nueva
+//se vacia. Las consultas hechas sobre una version anterior no la leen ni la llenan.
+public class CacheRutas {
+    private final int capacidad;
+    private final LinkedHashMap<Clave, List<Ruta>> entradas;
+    private long version = -1;
+    private long aciertos;
+    private long fallos;
+    private long desalojos;
+
+    public CacheRutas(int capacidad) {
+        this.capacidad = capacidad;
+        // Orden de acceso: la primera entrada es la usada hace mas tiempo
+        this.entradas = new LinkedHashMap<Clave, List<Ruta>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, List<Ruta>> eldest) {
+                if (size() > CacheRutas.this.capacidad) {
+                    desalojos++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    //Devuelve las rutas guardadas o null si no estan (o eran de otra version del grafo).
+    //algoritmo es null para las rutas alternativas, que no dependen de el
+    public synchronized List<Ruta> obtener(long versionGrafo, String origen, String destino, Ruta.Criterio criterio,
+                                           Ruta.Algoritmo algoritmo, int k) {
+        List<Ruta> rutas = ponerAlDia(versionGrafo) ? entradas.get(new Clave(origen, destino, criterio, algoritmo, k)) : null;
+        if (rutas == null) {
+            fallos++;
+        } else {
+            aciertos++;
+        }
+        return rutas;
+    }
+
+    public synchronized void guardar(long versionGrafo, String origen, String destino, Ruta.Criterio criterio,
+                                     Ruta.Algoritmo algoritmo, int k, List<Ruta> rutas) {
+        if (ponerAlDia(versionGrafo)) {
+            entradas.put(new Clave(origen, destino, criterio, algoritmo, k), rutas);
+        }
+    }
+
+    //La version solo avanza: una consulta que tomo la red antes de un cambio no vacia las entradas de la
+    //version nueva. Devuelve si versionGrafo es la version actual de la cache
+    private boolean ponerAlDia(long versionGrafo) {
+        if (versionGrafo > version) {
+            entradas.clear();
+            version = versionGrafo;
+        }
+        return versionGrafo == version;
+    }
+
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    public synchronized long getDesalojos() {
+        return desalojos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Cache de rutas: %d/%d entradas, %d aciertos, %d fallos, %d desalojos",
+            entradas.size(), capacidad, aciertos, fallos, desalojos);
+    }
+
+    private static final class Clave {
+        private final String origen;
+        private final String destino;
+        private final Ruta.Criterio criterio;
+        private final Ruta.Algoritmo algoritmo;
+        private final int k;
+
+        Clave(String origen, String destino, Ruta.Criterio criterio, Ruta.Algoritmo algoritmo, int k) {
+            this.origen = origen;
+            this.destino = destino;
+            this.criterio = criterio;
+            this.algoritmo = algoritmo;
+            this.k = k;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Clave otra = (Clave) o;
+            return k == otra.k && criterio == otra.criterio && algoritmo == otra.algoritmo && Objects.equals(origen, otra.origen) && Objects.equals(destino, otra.destino);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(origen, destino, criterio, algoritmo, k);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package proyectoaeropuerto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Contadores de demanda por id de arista. Cada contador es un LongAdder, que reparte los incrementos
+//concurrentes entre celdas en lugar de competir por un unico valor, de modo que muchas busquedas
+//pueden registrar demanda a la vez sin bloquearse. Los contadores se agrupan en bloques que se
+//crean a medida que aparecen ids nuevos; solo las aristas con demanda tienen contador.
+//Ademas se mantiene un ranking de las aristas con demanda, ordenado de mayor a menor. Un incremento
+//solo marca su contador como pendiente en un mapa de bits del bloque (sin bloquear ni reservar memoria);
+//el ranking se pone al dia con los pendientes al consultarlo, por lo que obtener las n mas demandadas
+//cuesta O(pendientes·log E + n).
+class ContadoresDemanda {
+    private static final int BITS_BLOQUE = 10;
+    private static final int TAMANO_BLOQUE = 1 << BITS_BLOQUE;
+
+    private volatile Bloque[] bloques = new Bloque[16];
+    //Protegido por synchronized (ranking)
+    private final TreeSet<Posicion> ranking = new TreeSet<>(
+        Comparator.comparingLong((Posicion p) -> p.demanda).reversed().thenComparingInt(p -> p.id));
+
+    //Demanda de una arista tal como estaba al armar el ranking
+    static final class Posicion {
+        final int id;
+        final long demanda;
+
+        Posicion(int id, long demanda) {
+            this.id = id;
+            this.demanda = demanda;
+        }
+    }
+
+    private static final class Contador {
+        final LongAdder suma = new LongAdder();
+        //Valor con el que esta en el ranking (0 si no esta); protegido por synchronized (ranking)
+        long enRanking;
+    }
+
+    private static final class Bloque {
+        final AtomicReferenceArray<Contador> contadores = new AtomicReferenceArray<>(TAMANO_BLOQUE);
+        //Un bit por contador cuyo valor cambio desde la ultima actualizacion del ranking
+        final AtomicLongArray pendientes = new AtomicLongArray(TAMANO_BLOQUE / 64);
+        volatile boolean conPendientes;
+    }
+
+    void incrementar(int id) {
+        Bloque bloque = bloque(id);
+        contador(bloque, id).suma.increment();
+        marcar(bloque, id);
+    }
+
+    //Aristas con demanda, de mayor a menor (a igual demanda, por id), como maximo n
+    List<Posicion> masDemandadas(int n) {
+        List<Posicion> resultado = new ArrayList<>(Math.max(0, Math.min(n, 1024)));
+        synchronized (ranking) {
+            Bloque[] actuales = bloques;
+            for (int b = 0; b < actuales.length; b++) {
+                Bloque bloque = actuales[b];
+                if (bloque == null || !bloque.conPendientes) continue;
+                // Se desmarca antes de leer: un incremento posterior lo volvera a marcar
+                bloque.conPendientes = false;
+                for (int w = 0; w < bloque.pendientes.length(); w++) {
+                    long bits = bloque.pendientes.getAndSet(w, 0);
+                    while (bits != 0) {
+                        int i = w * 64 + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        Contador contador = bloque.contadores.get(i);
+                        if (contador != null) {
+                            reubicar((b << BITS_BLOQUE) | i, contador, contador.suma.sum());
+                        }
+                    }
+                }
+            }
+            for (Posicion posicion : ranking) {
+                if (resultado.size() >= n) break;
+                resultado.add(posicion);
+            }
+        }
+        return resultado;
+    }
+
+    //Suma actual del contador; puede no incluir incrementos que ocurren durante la lectura
+    long valor(int id) {
+        Bloque[] actuales = bloques;
+        int b = id >>> BITS_BLOQUE;
+        if (b >= actuales.length || actuales[b] == null) return 0;
+        Contador contador = actuales[b].contadores.get(id & (TAMANO_BLOQUE - 1));
+        return (contador != null) ? contador.suma.sum() : 0;
+    }
+
+    //Fija el valor inicial (al cargar datos o al mover la demanda de una arista a otra)
+    void establecer(int id, long valor) {
+        if (valor == 0) {
+            eliminar(id);
+            return;
+        }
+        Bloque bloque = bloque(id);
+        Contador contador = contador(bloque, id);
+        contador.suma.reset();
+        contador.suma.add(valor);
+        marcar(bloque, id);
+    }
+
+    void eliminar(int id) {
+        Bloque[] actuales = bloques;
+        int b = id >>> BITS_BLOQUE;
+        if (b < actuales.length && actuales[b] != null) {
+            Contador contador = actuales[b].contadores.getAndSet(id & (TAMANO_BLOQUE - 1), null);
+            if (contador != null) {
+                synchronized (ranking) {
+                    reubicar(id, contador, 0);
+                }
+            }
+        }
+    }
+
+    private static void marcar(Bloque bloque, int id) {
+        int i = id & (TAMANO_BLOQUE - 1);
+        long bit = 1L << (i & 63);
+        if ((bloque.pendientes.get(i >>> 6) & bit) == 0) {
+            bloque.pendientes.getAndAccumulate(i >>> 6, bit, (actual, nuevo) -> actual | nuevo);
+        }
+        if (!bloque.conPendientes) {
+            bloque.conPendientes = true;
+        }
+    }
+
+    private void reubicar(int id, Contador contador, long demanda) {
+        if (contador.enRanking == demanda) return;
+        if (contador.enRanking != 0) {
+            ranking.remove(new Posicion(id, contador.enRanking));
+        }
+        if (demanda != 0) {
+            ranking.add(new Posicion(id, demanda));
+        }
+        contador.enRanking = demanda;
+    }
+
+    private static Contador contador(Bloque bloque, int id) {
+        int i = id & (TAMANO_BLOQUE - 1);
+        Contador contador = bloque.contadores.get(i);
+        if (contador == null) {
+            // Si otro hilo lo crea a la vez, se usa el suyo
+            Contador nuevo = new Contador();
+            contador = bloque.contadores.compareAndSet(i, null, nuevo) ? nuevo : bloque.contadores.get(i);
+        }
+        return contador;
+    }
+
+    private Bloque bloque(int id) {
+        if (id < 0) throw new IllegalArgumentException("Id de arista invalido: " + id);
+        int b = id >>> BITS_BLOQUE;
+        Bloque[] actuales = bloques;
+        if (b < actuales.length && actuales[b] != null) {
+            return actuales[b];
+        }
+        synchronized (this) {
+            actuales = bloques;
+            if (b >= actuales.length) {
+                actuales = Arrays.copyOf(actuales, Math.max(b + 1, actuales.length * 2));
+            }
+            if (actuales[b] == null) {
+                actuales[b] = new Bloque();
+            }
+            bloques = actuales;
+            return actuales[b];
+        }
+    }
+}
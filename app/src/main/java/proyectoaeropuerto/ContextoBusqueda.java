@@ -0,0 +1,126 @@
+package proyectoaeropuerto;
+
+import java.util.Arrays;
+
+//Estado de una busqueda de rutas (pesos acumulados, predecesores y visitados) indexado por id de vertice.
+//Cada hilo reutiliza su propio contexto; en vez de reiniciar los arreglos en cada consulta se incrementa
+//una generacion, y una entrada solo es valida si su marca coincide con la generacion actual.
+class ContextoBusqueda {
+    private static final ThreadLocal<ContextoBusqueda> POR_HILO = ThreadLocal.withInitial(ContextoBusqueda::new);
+
+    private int generacion;
+    private int[] marca = new int[0];
+    private int[] marcaVisitado = new int[0];
+    private double[] pesoAcumulado = new double[0];
+    private int[] predecesor = new int[0];
+    private int[] marcaBloqueo = new int[0];
+    private int[] marcaProhibido = new int[0];
+    private boolean enUso;
+    private int asentados;
+    //Segundo juego de etiquetas para la busqueda hacia atras de las consultas bidireccionales
+    private ContextoBusqueda inverso;
+    final MonticuloBinario cola = new MonticuloBinario(64);
+
+    //Entrega el contexto del hilo listo para una nueva busqueda. Si ya esta en uso (llamada
+    //reentrante) se entrega uno nuevo para no pisar la busqueda en curso.
+    static ContextoBusqueda obtener(int numeroVertices) {
+        ContextoBusqueda contexto = POR_HILO.get();
+        if (contexto.enUso) {
+            contexto = new ContextoBusqueda();
+        }
+        contexto.enUso = true;
+        contexto.preparar(numeroVertices);
+        return contexto;
+    }
+
+    void liberar() {
+        enUso = false;
+    }
+
+    //Contexto para la busqueda hacia atras, preparado para una nueva busqueda
+    ContextoBusqueda inverso() {
+        if (inverso == null) {
+            inverso = new ContextoBusqueda();
+        }
+        inverso.preparar(marca.length);
+        return inverso;
+    }
+
+    //Vertices asentados por la ultima busqueda de este hilo (incluida la busqueda hacia atras)
+    static int verticesAsentadosUltimaBusqueda() {
+        ContextoBusqueda contexto = POR_HILO.get();
+        return contexto.asentados + ((contexto.inverso != null) ? contexto.inverso.asentados : 0);
+    }
+
+    //Descarta el estado de la busqueda anterior para reutilizar el contexto en otra
+    void reiniciar() {
+        preparar(marca.length);
+    }
+
+    private void preparar(int numeroVertices) {
+        if (marca.length < numeroVertices) {
+            int capacidad = Math.max(numeroVertices, marca.length * 2);
+            marca = Arrays.copyOf(marca, capacidad);
+            marcaVisitado = Arrays.copyOf(marcaVisitado, capacidad);
+            pesoAcumulado = Arrays.copyOf(pesoAcumulado, capacidad);
+            predecesor = Arrays.copyOf(predecesor, capacidad);
+            marcaBloqueo = Arrays.copyOf(marcaBloqueo, capacidad);
+            marcaProhibido = Arrays.copyOf(marcaProhibido, capacidad);
+        }
+        generacion++;
+        if (generacion == Integer.MAX_VALUE) {
+            // Al desbordar la generacion se limpian las marcas una sola vez
+            Arrays.fill(marca, 0);
+            Arrays.fill(marcaVisitado, 0);
+            Arrays.fill(marcaBloqueo, 0);
+            Arrays.fill(marcaProhibido, 0);
+            generacion = 1;
+        }
+        cola.limpiar();
+        asentados = 0;
+        if (inverso != null) {
+            inverso.asentados = 0;
+        }
+    }
+
+    double getPesoAcumulado(int vertice) {
+        return (marca[vertice] == generacion) ? pesoAcumulado[vertice] : Double.POSITIVE_INFINITY;
+    }
+
+    int getPredecesor(int vertice) {
+        return (marca[vertice] == generacion) ? predecesor[vertice] : -1;
+    }
+
+    void actualizar(int vertice, double peso, int predecesorVertice) {
+        marca[vertice] = generacion;
+        pesoAcumulado[vertice] = peso;
+        predecesor[vertice] = predecesorVertice;
+    }
+
+    boolean esVisitado(int vertice) {
+        return marcaVisitado[vertice] == generacion;
+    }
+
+    void marcarVisitado(int vertice) {
+        marcaVisitado[vertice] = generacion;
+        asentados++;
+    }
+
+    //Vertices excluidos por completo de la busqueda actual
+    boolean estaBloqueado(int vertice) {
+        return marcaBloqueo[vertice] == generacion;
+    }
+
+    void bloquear(int vertice) {
+        marcaBloqueo[vertice] = generacion;
+    }
+
+    //Destinos a los que no se puede ir directamente desde el origen de la busqueda actual
+    boolean esDestinoProhibido(int vertice) {
+        return marcaProhibido[vertice] == generacion;
+    }
+
+    void prohibirDestino(int vertice) {
+        marcaProhibido[vertice] = generacion;
+    }
+}
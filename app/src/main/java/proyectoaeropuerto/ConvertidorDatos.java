@@ -0,0 +1,46 @@
+package proyectoaeropuerto;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+//Convierte los datos de la red entre CSV (AEROPUERTO/VUELO) y el snapshot binario.
+//Uso: java proyectoaeropuerto.ConvertidorDatos entrada.csv salida.bin
+//     java proyectoaeropuerto.ConvertidorDatos entrada.bin salida.csv
+//El formato de cada archivo se deduce de su extension.
+public class ConvertidorDatos {
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Uso: ConvertidorDatos <entrada.csv|entrada.bin> <salida.csv|salida.bin>");
+            System.exit(2);
+        }
+        File entrada = new File(args[0]);
+        File salida = new File(args[1]);
+        SistemaDeVuelos sistema = new SistemaDeVuelos();
+        try {
+            long inicio = System.nanoTime();
+            if (esBinario(entrada)) {
+                sistema.cargarSnapshot(entrada);
+            } else {
+                sistema.cargarCSV(entrada);
+            }
+            long finLectura = System.nanoTime();
+            if (esBinario(salida)) {
+                sistema.escribirSnapshot(salida);
+            } else {
+                sistema.exportarCSV(salida);
+            }
+            System.out.println(String.format("%d aeropuertos y %d vuelos convertidos (lectura %.0f ms, escritura %.0f ms)",
+                sistema.getTodosLosAeropuertos().size(), sistema.getNumeroDeVuelos(),
+                (finLectura - inicio) / 1e6, (System.nanoTime() - finLectura) / 1e6));
+        } catch (IOException e) {
+            System.err.println("Error al convertir " + entrada.getPath() + ":");
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static boolean esBinario(File archivo) {
+        return archivo.getName().toLowerCase(Locale.ROOT).endsWith(".bin");
+    }
+}
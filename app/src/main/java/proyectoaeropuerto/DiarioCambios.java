@@ -0,0 +1,183 @@
+package proyectoaeropuerto;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+//Diario de cambios de solo agregado: cada modificacion de los datos se escribe como una linea al final
+//del archivo en vez de reescribir todo el estado. Al compactar, el estado completo se guarda aparte y el
+//diario se rota; al iniciar se carga ese estado y se vuelven a aplicar los registros del diario.
+//Cada archivo empieza con la generacion del snapshot al que sigue ("#GENERACION,g"). Se conservan los
+//diarios de los snapshots anteriores (archivo.1, archivo.2, ...) para poder reconstruir el estado a
+//partir de uno de ellos si el ultimo snapshot esta dañado.
+class DiarioCambios {
+    private static final String CABECERA = "#GENERACION,";
+
+    private final File archivo;
+    private final int copias;
+    private FileOutputStream salida;
+    private Writer escritor;
+    //Generacion del snapshot al que siguen los registros del archivo actual
+    private long generacion;
+
+    DiarioCambios(String ruta, int copias) {
+        this.archivo = new File(ruta);
+        this.copias = Math.max(1, copias);
+    }
+
+    //Agrega varios registros al final del diario y los sincroniza con el disco de una sola vez
+    synchronized void registrar(List<String> registros) throws IOException {
+        if (escritor == null) {
+            File parentDir = archivo.getAbsoluteFile().getParentFile();
+            if (parentDir != null && !parentDir.exists()) {
+                parentDir.mkdirs();
+            }
+            boolean nuevo = archivo.length() == 0;
+            boolean cortado = !nuevo && !terminaEnSaltoDeLinea();
+            salida = new FileOutputStream(archivo, true);
+            escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            if (nuevo) {
+                escritor.write(CABECERA + generacion);
+                escritor.write(System.lineSeparator());
+            } else if (cortado) {
+                // El ultimo registro quedo a medias (cierre abrupto): el siguiente no debe continuarlo
+                escritor.write(System.lineSeparator());
+            }
+        }
+        for (String registro : registros) {
+            escritor.write(registro);
+            escritor.write(System.lineSeparator());
+        }
+        escritor.flush();
+        salida.getFD().sync();
+    }
+
+    //Registros de todos los diarios conservados con generacion >= desde, en el orden en que se escribieron.
+    //Los registros que se agreguen despues seguiran a la mayor generacion encontrada.
+    synchronized List<String> leer(long desde) {
+        cerrar();
+        List<String> lineas = new ArrayList<>();
+        long ultima = desde;
+        long generacionActual = desde;
+        for (int k = copias - 1; k >= 0; k--) {
+            File diario = copia(k);
+            if (!diario.exists()) continue;
+            List<String> registros = new ArrayList<>();
+            // Los diarios sin cabecera (anteriores a las generaciones) siguen al snapshot cargado
+            long generacionDiario = leerArchivo(diario, registros, desde);
+            if (k == 0) generacionActual = generacionDiario;
+            if (generacionDiario < desde) continue;
+            lineas.addAll(registros);
+            ultima = Math.max(ultima, generacionDiario);
+        }
+        generacion = ultima;
+        if (generacionActual < desde) {
+            // El snapshot se escribio pero el diario no llego a rotarse: sus registros ya estan incluidos
+            rotar(generacion);
+        }
+        return lineas;
+    }
+
+    //Mayor generacion entre los diarios conservados (0 si no hay ninguno)
+    synchronized long getUltimaGeneracion() {
+        long ultima = 0;
+        for (int k = 0; k < copias; k++) {
+            if (copia(k).exists()) {
+                ultima = Math.max(ultima, leerArchivo(copia(k), new ArrayList<>(), 0));
+            }
+        }
+        return ultima;
+    }
+
+    synchronized long getGeneracion() {
+        return generacion;
+    }
+
+    //Se llama una vez guardado el snapshot de la nueva generacion: el diario actual pasa a archivo.1
+    //(y los anteriores se desplazan) y los registros siguientes van a un archivo nuevo
+    synchronized void rotar(long nuevaGeneracion) {
+        cerrar();
+        try {
+            if (archivo.exists()) {
+                if (copias == 1) {
+                    Files.delete(archivo.toPath());
+                } else {
+                    Files.deleteIfExists(copia(copias - 1).toPath());
+                    for (int k = copias - 2; k >= 0; k--) {
+                        if (copia(k).exists()) {
+                            mover(copia(k), copia(k + 1));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("No se pudo rotar el diario de cambios: " + archivo.getPath());
+            e.printStackTrace();
+        }
+        generacion = nuevaGeneracion;
+    }
+
+    synchronized void cerrar() {
+        if (escritor != null) {
+            try {
+                escritor.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar el diario de cambios:");
+                e.printStackTrace();
+            }
+            escritor = null;
+            salida = null;
+        }
+    }
+
+    private boolean terminaEnSaltoDeLinea() throws IOException {
+        try (RandomAccessFile lector = new RandomAccessFile(archivo, "r")) {
+            lector.seek(lector.length() - 1);
+            return lector.read() == '\n';
+        }
+    }
+
+    private File copia(int k) {
+        return (k == 0) ? archivo : new File(archivo.getPath() + "." + k);
+    }
+
+    //Agrega los registros del archivo a la lista y devuelve su generacion (porDefecto si no tiene cabecera)
+    private static long leerArchivo(File diario, List<String> registros, long porDefecto) {
+        long generacionDiario = porDefecto;
+        try (BufferedReader reader = Files.newBufferedReader(diario.toPath(), StandardCharsets.UTF_8)) {
+            String linea;
+            boolean primera = true;
+            while ((linea = reader.readLine()) != null) {
+                if (primera && linea.startsWith(CABECERA)) {
+                    generacionDiario = Long.parseLong(linea.substring(CABECERA.length()).trim());
+                } else if (!linea.isEmpty()) {
+                    registros.add(linea);
+                }
+                primera = false;
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error al leer el diario de cambios " + diario.getPath() + ":");
+            e.printStackTrace();
+        }
+        return generacionDiario;
+    }
+
+    private static void mover(File origen, File destino) throws IOException {
+        try {
+            Files.move(origen.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origen.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
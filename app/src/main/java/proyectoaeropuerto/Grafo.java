@@ -1,241 +1,495 @@
 package proyectoaeropuerto;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Grafo<V, E> {
-    private final LinkedList<Nodo<V, E>> nodos;
-    private final Comparator<Nodo<V, E>> comparadorDijkstra;
+    //Vertices por su valor (para Aeropuerto, equals/hashCode usan el codigo IATA), en el orden en que se
+    //agregaron; quitar uno es O(1)
+    private final LinkedHashMap<V, Nodo<V, E>> indiceNodos;
+    //Se incrementa con cada modificacion; permite saber si la red compilada quedo desactualizada
+    private volatile long version;
+    private volatile RedCompilada redCompilada;
+    //Las aristas se identifican con un entero que no se reutiliza y que se guarda con los datos, de modo
+    //que se mantiene entre ejecuciones; la demanda de cada una se guarda aparte
+    private int siguienteIdArista;
+    private final ContadoresDemanda demanda = new ContadoresDemanda();
+    //Arista de cada id (null si se elimino)
+    private final ArrayList<Arista<V, E>> aristasPorId = new ArrayList<>();
+    //Un id guardado mayor que siguienteIdArista + MAXIMO_HUECO_IDS no se respeta, para no reservar una tabla enorme
+    private static final int MAXIMO_HUECO_IDS = 1 << 20;
+    private int numeroAristas;
+    //Vertices agrupados por conexiones (vuelos salientes) y, dentro de cada grupo, ordenados por ordenEmpates.
+    //Agregar o quitar aristas solo marca los vertices afectados, el indice se pone al dia al consultarlo.
+    private final TreeMap<Integer, TreeSet<Nodo<V, E>>> indiceGrados = new TreeMap<>();
+    private final List<Nodo<V, E>> gradosPendientes = new ArrayList<>();
+    //Desempate entre vertices con las mismas conexiones: el comparador dado o, si no hay, el orden de creacion
+    private final Comparator<Nodo<V, E>> ordenEmpates;
+    private int siguienteOrden;
 
     public static class Nodo<V, E> {
         final V data;
-        final LinkedList<Arista<V, E>> adyacentes = new LinkedList<>();
-        double pesoAcumulado = Double.POSITIVE_INFINITY;
-        Nodo<V, E> predecesor = null;
-        boolean visitado = false;
-
-        Nodo(V data) { 
+        //Cada arista sabe su posicion en estas listas, asi se quita en O(1) moviendo la ultima a su lugar
+        final ArrayList<Arista<V, E>> adyacentes = new ArrayList<>();
+        //Aristas que llegan a este vertice (las mismas que estan en adyacentes de su origen)
+        final ArrayList<Arista<V, E>> entrantes = new ArrayList<>();
+        //Orden de creacion, para desempatar vertices con las mismas conexiones
+        final int orden;
+        //Grado con el que esta en indiceGrados (-1 si no esta) y si hay que actualizarlo
+        int gradoIndexado = -1;
+        boolean gradoPendiente;
+
+        Nodo(V data, int orden) { 
             this.data = data; 
-        }
-        
-        void reiniciarParaDijkstra() {
-            pesoAcumulado = Double.POSITIVE_INFINITY;
-            predecesor = null;
-            visitado = false;
+            this.orden = orden;
         }
 
-        public double getPesoAcumulado() {
-            return pesoAcumulado;
+        //Conexiones del vertice: sus vuelos salientes
+        int getGrado() {
+            return adyacentes.size();
         }
     }
 
-    private static class Arista<V, E> {
+    static class Arista<V, E> {
+        final int id;
+        final Nodo<V, E> origen;
         final Nodo<V, E> destino;
-        final E peso;
-        Arista(Nodo<V, E> destino, E peso) {
+        E peso;
+        //Posiciones en origen.adyacentes y en destino.entrantes
+        int posicionSalida;
+        int posicionEntrada;
+        Arista(int id, Nodo<V, E> origen, Nodo<V, E> destino, E peso) {
+            this.id = id;
+            this.origen = origen;
             this.destino = destino;
             this.peso = peso;
         }
     }
 
-    public Grafo(Comparator<Nodo<V, E>> comparadorDijkstra) {
-        this.nodos = new LinkedList<>();
-        this.comparadorDijkstra = comparadorDijkstra;
+    public Grafo() {
+        this(null);
     }
 
-    private Nodo<V, E> buscarNodo(V data) {
-        for (Nodo<V, E> nodo : nodos) {
-            if (nodo.data.equals(data)) return nodo;
+    //desempate ordena los vertices con las mismas conexiones en getVerticeMasConectado/MenosConectado
+    //(gana el menor); sin el, gana el agregado primero
+    public Grafo(Comparator<? super V> desempate) {
+        this.indiceNodos = new LinkedHashMap<>();
+        this.ordenEmpates = (desempate != null)
+            ? (a, b) -> desempate.compare(a.data, b.data)
+            : Comparator.comparingInt((Nodo<V, E> n) -> n.orden);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    Collection<Nodo<V, E>> getNodos() {
+        return indiceNodos.values();
+    }
+
+    //Devuelve la red compilada (CSR) del grafo; solo se reconstruye si el grafo cambio desde la ultima vez
+    public RedCompilada getRedCompilada() {
+        RedCompilada red = getRedCompiladaVigente();
+        if (red != null) return red;
+        // Varias consultas pueden pedirla a la vez (sin escrituras en curso): se compila una sola vez
+        synchronized (this) {
+            red = getRedCompiladaVigente();
+            if (red == null) {
+                red = new RedCompilada(this);
+                redCompilada = red;
+            }
+            return red;
         }
-        return null;
+    }
+
+    //La red compilada si corresponde a la version actual del grafo, o null; nunca compila
+    RedCompilada getRedCompiladaVigente() {
+        RedCompilada red = redCompilada;
+        return (red != null && red.getVersion() == version) ? red : null;
+    }
+
+    private Nodo<V, E> buscarNodo(V data) {
+        return (data != null) ? indiceNodos.get(data) : null;
     }
 
     public void agregarVertice(V data) {
         if (buscarNodo(data) == null) {
-            nodos.add(new Nodo<>(data));
+            Nodo<V, E> nodo = new Nodo<>(data, siguienteOrden++);
+            indiceNodos.put(data, nodo);
+            marcarGrado(nodo);
+            version++;
         }
     }
 
     public void agregarArista(V origenData, V destinoData, E peso) {
+        agregarArista(origenData, destinoData, peso, 0);
+    }
+
+    //Agrega la arista con una demanda inicial y devuelve su id (-1 si no existe alguno de los vertices)
+    public int agregarArista(V origenData, V destinoData, E peso, long demandaInicial) {
+        return agregarArista(-1, origenData, destinoData, peso, demandaInicial);
+    }
+
+    //Como el anterior, pero conserva el id con el que se guardo la arista si esta libre (al cargar datos
+    //o reproducir el diario); si esta ocupado, es negativo o deja un hueco demasiado grande, se usa uno nuevo
+    public int agregarArista(int idPreferido, V origenData, V destinoData, E peso, long demandaInicial) {
         Nodo<V, E> origen = buscarNodo(origenData);
         Nodo<V, E> destino = buscarNodo(destinoData);
         if (origen != null && destino != null) {
-            origen.adyacentes.add(new Arista<>(destino, peso));
+            int id = siguienteIdArista;
+            if (idPreferido >= 0 && idPreferido - siguienteIdArista < MAXIMO_HUECO_IDS
+                    && (idPreferido >= aristasPorId.size() || aristasPorId.get(idPreferido) == null)) {
+                id = idPreferido;
+            }
+            Arista<V, E> arista = new Arista<>(id, origen, destino, peso);
+            arista.posicionSalida = origen.adyacentes.size();
+            origen.adyacentes.add(arista);
+            arista.posicionEntrada = destino.entrantes.size();
+            destino.entrantes.add(arista);
+            while (aristasPorId.size() <= id) {
+                aristasPorId.add(null);
+            }
+            aristasPorId.set(id, arista);
+            siguienteIdArista = Math.max(siguienteIdArista, id + 1);
+            numeroAristas++;
+            marcarGrado(origen);
+            marcarGrado(destino);
+            if (demandaInicial != 0) {
+                demanda.establecer(arista.id, demandaInicial);
+            }
+            version++;
+            return arista.id;
         }
+        return -1;
     }
 
     public void eliminarVertice(V data) {
         Nodo<V, E> nodoAEliminar = buscarNodo(data);
         if (nodoAEliminar == null) return;
-        nodos.remove(nodoAEliminar);
-        for (Nodo<V, E> nodo : nodos) {
-            nodo.adyacentes.removeIf(arista -> arista.destino.equals(nodoAEliminar));
+        indiceNodos.remove(data);
+        if (nodoAEliminar.gradoIndexado >= 0) {
+            quitarDeIndiceGrados(nodoAEliminar);
+        }
+        // Solo se recorren las aristas del vertice: las salientes se quitan de la lista de entrantes
+        // de su destino y las entrantes de la lista de salientes de su origen
+        for (Arista<V, E> arista : nodoAEliminar.adyacentes) {
+            if (arista.destino != nodoAEliminar) {
+                quitarEntrada(arista);
+            }
+            olvidarArista(arista);
         }
+        for (Arista<V, E> arista : nodoAEliminar.entrantes) {
+            if (arista.origen != nodoAEliminar) {
+                quitarSalida(arista);
+                olvidarArista(arista);
+            }
+        }
+        nodoAEliminar.adyacentes.clear();
+        nodoAEliminar.entrantes.clear();
+        version++;
     }
 
+    //Elimina todas las aristas origen -> destino con ese peso
     public void eliminarArista(V origenData, V destinoData, E peso) {
         Nodo<V, E> origen = buscarNodo(origenData);
         if (origen != null) {
-            origen.adyacentes.removeIf(arista -> 
-                arista.destino.data.equals(destinoData) && arista.peso.equals(peso)
-            );
+            List<Arista<V, E>> coincidentes = new ArrayList<>();
+            for (Arista<V, E> arista : origen.adyacentes) {
+                if (arista.destino.data.equals(destinoData) && arista.peso.equals(peso)) {
+                    coincidentes.add(arista);
+                }
+            }
+            for (Arista<V, E> arista : coincidentes) {
+                eliminarArista(arista.id);
+            }
         }
     }
 
-    public int getNumeroDeConexiones(V data) {
-        Nodo<V, E> nodo = buscarNodo(data);
-        return (nodo != null) ? nodo.adyacentes.size() : 0;
+    //Elimina la arista con ese id en O(1); devuelve false si no existe
+    public boolean eliminarArista(int idArista) {
+        Arista<V, E> arista = getArista(idArista);
+        if (arista == null) return false;
+        quitarSalida(arista);
+        quitarEntrada(arista);
+        olvidarArista(arista);
+        version++;
+        return true;
     }
 
-    public List<Vuelo> getTodosLosVuelos() {
-        List<Vuelo> todosLosVuelos = new ArrayList<>();
-        for (Nodo<V, E> nodo : nodos) {
-            for (Arista<V, E> arista : nodo.adyacentes) {
-                todosLosVuelos.add(new Vuelo((Aeropuerto) nodo.data, (Aeropuerto) arista.destino.data, (PesoVuelo) arista.peso));
+    //Cambia el peso de la arista sin quitarla del grafo: conserva su id, su posicion y su demanda
+    public boolean actualizarArista(int idArista, E peso) {
+        Arista<V, E> arista = getArista(idArista);
+        if (arista == null) return false;
+        arista.peso = peso;
+        version++;
+        return true;
+    }
+
+    //Vuelo con ese id, o null si no existe
+    public Vuelo getVuelo(int idArista) {
+        Arista<V, E> arista = getArista(idArista);
+        return (arista != null) ? aVuelo(arista, demanda.valor(arista.id)) : null;
+    }
+
+    private Arista<V, E> getArista(int idArista) {
+        return (idArista >= 0 && idArista < aristasPorId.size()) ? aristasPorId.get(idArista) : null;
+    }
+
+    //Quitan la arista de la lista de su origen / de su destino poniendo la ultima en su lugar
+    private static <V, E> void quitarSalida(Arista<V, E> arista) {
+        ArrayList<Arista<V, E>> lista = arista.origen.adyacentes;
+        Arista<V, E> ultima = lista.remove(lista.size() - 1);
+        if (ultima != arista) {
+            lista.set(arista.posicionSalida, ultima);
+            ultima.posicionSalida = arista.posicionSalida;
+        }
+    }
+
+    private static <V, E> void quitarEntrada(Arista<V, E> arista) {
+        ArrayList<Arista<V, E>> lista = arista.destino.entrantes;
+        Arista<V, E> ultima = lista.remove(lista.size() - 1);
+        if (ultima != arista) {
+            lista.set(arista.posicionEntrada, ultima);
+            ultima.posicionEntrada = arista.posicionEntrada;
+        }
+    }
+
+    //Se llama con la arista ya quitada (o por quitar) de las listas de su origen y su destino
+    private void olvidarArista(Arista<V, E> arista) {
+        aristasPorId.set(arista.id, null);
+        numeroAristas--;
+        demanda.eliminar(arista.id);
+        marcarGrado(arista.origen);
+        marcarGrado(arista.destino);
+    }
+
+    private void marcarGrado(Nodo<V, E> nodo) {
+        if (!nodo.gradoPendiente) {
+            nodo.gradoPendiente = true;
+            gradosPendientes.add(nodo);
+        }
+    }
+
+    //Reubica en indiceGrados los vertices cuyas conexiones cambiaron desde la ultima consulta
+    private void actualizarIndiceGrados() {
+        for (Nodo<V, E> nodo : gradosPendientes) {
+            nodo.gradoPendiente = false;
+            if (indiceNodos.get(nodo.data) != nodo) continue; // Vertice eliminado
+            int grado = nodo.getGrado();
+            if (grado == nodo.gradoIndexado) continue;
+            if (nodo.gradoIndexado >= 0) {
+                quitarDeIndiceGrados(nodo);
             }
+            indiceGrados.computeIfAbsent(grado, g -> new TreeSet<>(ordenEmpates)).add(nodo);
+            nodo.gradoIndexado = grado;
         }
-        return todosLosVuelos;
+        gradosPendientes.clear();
     }
 
-    public Ruta encontrarRutaMasCorta(V origenData, V destinoData, Ruta.Criterio criterio) {
-        Nodo<V, E> nodoInicio = buscarNodo(origenData);
-        Nodo<V, E> nodoDestino = buscarNodo(destinoData);
+    private void quitarDeIndiceGrados(Nodo<V, E> nodo) {
+        TreeSet<Nodo<V, E>> grupo = indiceGrados.get(nodo.gradoIndexado);
+        grupo.remove(nodo);
+        if (grupo.isEmpty()) {
+            indiceGrados.remove(nodo.gradoIndexado);
+        }
+        nodo.gradoIndexado = -1;
+    }
 
-        if (nodoInicio == null || nodoDestino == null) {
-            return new Ruta(new LinkedList<>(), -1, criterio); // Devuelve ruta vacía si no existen los nodos
+    //Vertice con mas conexiones (vuelos salientes); a igualdad, el primero segun el desempate. null si no hay
+    //vertices. Consultar pone al dia el indice, asi que dos consultas simultaneas (sin escrituras) se turnan
+    public V getVerticeMasConectado() {
+        synchronized (indiceGrados) {
+            actualizarIndiceGrados();
+            return indiceGrados.isEmpty() ? null : indiceGrados.lastEntry().getValue().first().data;
         }
+    }
 
-        // 1. Inicializar todos los nodos
-        for(Nodo<V,E> nodo : nodos) {
-            nodo.reiniciarParaDijkstra();
+    //Vertice con menos conexiones (vuelos salientes); a igualdad, el primero segun el desempate. null si no hay vertices
+    public V getVerticeMenosConectado() {
+        synchronized (indiceGrados) {
+            actualizarIndiceGrados();
+            return indiceGrados.isEmpty() ? null : indiceGrados.firstEntry().getValue().first().data;
         }
+    }
 
-        // 2. Establecer el nodo de inicio
-        nodoInicio.pesoAcumulado = 0;
-        PriorityQueue<Nodo<V, E>> colaPrioridad = new PriorityQueue<>(comparadorDijkstra);
-        colaPrioridad.add(nodoInicio);
+    //Suma uno a la demanda de la arista; es seguro llamarlo desde varias busquedas a la vez
+    public void incrementarDemanda(int idArista) {
+        demanda.incrementar(idArista);
+    }
 
-        // 3. Bucle principal de Dijkstra
-        while (!colaPrioridad.isEmpty()) {
-            Nodo<V, E> nodoActual = colaPrioridad.poll();
+    //Indica si la arista existe y va de origen a destino (para validar ids guardados de una version anterior)
+    public boolean esAristaEntre(int idArista, V origenData, V destinoData) {
+        Arista<V, E> arista = getArista(idArista);
+        return arista != null && arista.origen.data.equals(origenData) && arista.destino.data.equals(destinoData);
+    }
 
-            if (nodoActual.visitado) {
-                continue;
-            }
-            nodoActual.visitado = true;
+    public long getDemanda(int idArista) {
+        return demanda.valor(idArista);
+    }
 
-            // Si hemos llegado al destino, podemos parar
-            if (nodoActual.equals(nodoDestino)) {
-                break;
+    //Las n aristas de mayor demanda, de mayor a menor, sin recorrer el grafo: salen del ranking de
+    //los contadores. Si hay menos de n con demanda, se completa con aristas sin demanda.
+    public List<Vuelo> getVuelosMasDemandados(int n) {
+        List<Vuelo> vuelos = new ArrayList<>();
+        for (ContadoresDemanda.Posicion posicion : demanda.masDemandadas(n)) {
+            Arista<V, E> arista = aristasPorId.get(posicion.id);
+            if (arista != null) {
+                vuelos.add(aVuelo(arista, posicion.demanda));
             }
-
-            for (Arista<V, E> arista : nodoActual.adyacentes) {
-                Nodo<V, E> vecino = arista.destino;
-
-                if (!vecino.visitado) {
-                    // Determinar el peso de la arista según el criterio
-                    PesoVuelo pesoVuelo = (PesoVuelo) arista.peso;
-                    double pesoArista;
-                    switch (criterio) {
-                        case TIEMPO: pesoArista = pesoVuelo.getTiempo(); break;
-                        case COSTO: pesoArista = pesoVuelo.getCosto(); break;
-                        default: pesoArista = pesoVuelo.getDistancia(); break;
-                    }
-
-                    double nuevoPesoAcumulado = nodoActual.pesoAcumulado + pesoArista;
-
-                    if (nuevoPesoAcumulado < vecino.pesoAcumulado) {
-                        vecino.pesoAcumulado = nuevoPesoAcumulado;
-                        vecino.predecesor = nodoActual;
-                        colaPrioridad.add(vecino);
-                    }
+        }
+        if (vuelos.size() >= n) return vuelos;
+        for (Nodo<V, E> nodo : indiceNodos.values()) {
+            for (Arista<V, E> arista : nodo.adyacentes) {
+                if (vuelos.size() >= n) return vuelos;
+                if (demanda.valor(arista.id) == 0) {
+                    vuelos.add(aVuelo(arista, 0));
                 }
             }
         }
+        return vuelos;
+    }
 
-        // 4. Reconstruir el camino desde el destino hacia atrás
-        LinkedList<Aeropuerto> camino = new LinkedList<>();
-        if (nodoDestino.pesoAcumulado != Double.POSITIVE_INFINITY) {
-            Nodo<V, E> paso = nodoDestino;
-            while (paso != null) {
-                camino.addFirst((Aeropuerto) paso.data);
-                paso = paso.predecesor;
+    //Id de la primera arista origen -> destino, o -1 si no hay ninguna
+    public int buscarArista(V origenData, V destinoData) {
+        Nodo<V, E> origen = buscarNodo(origenData);
+        if (origen != null) {
+            for (Arista<V, E> arista : origen.adyacentes) {
+                if (arista.destino.data.equals(destinoData)) return arista.id;
             }
         }
-        return new Ruta(camino, nodoDestino.pesoAcumulado, criterio);
+        return -1;
     }
 
-    public List<Ruta> encontrarRutasAlternativas(V origenData, V destinoData, Ruta.Criterio criterio, int maxRutas) {
-        Nodo<V, E> nodoInicio = buscarNodo(origenData);
-        Nodo<V, E> nodoDestino = buscarNodo(destinoData);
-        List<Ruta> rutasEncontradas = new ArrayList<>();
+    //Conexiones del vertice: sus vuelos salientes
+    public int getNumeroDeConexiones(V data) {
+        Nodo<V, E> nodo = buscarNodo(data);
+        return (nodo != null) ? nodo.getGrado() : 0;
+    }
 
-        if (nodoInicio == null || nodoDestino == null) {
-            return rutasEncontradas;
-        }
+    public int getGradoSalida(V data) {
+        Nodo<V, E> nodo = buscarNodo(data);
+        return (nodo != null) ? nodo.adyacentes.size() : 0;
+    }
 
-        List<LinkedList<Nodo<V, E>>> todosLosCaminos = new ArrayList<>();
-        LinkedList<Nodo<V, E>> caminoActual = new LinkedList<>();
-        caminoActual.add(nodoInicio);
+    public int getGradoEntrada(V data) {
+        Nodo<V, E> nodo = buscarNodo(data);
+        return (nodo != null) ? nodo.entrantes.size() : 0;
+    }
 
-        buscarCaminosDFS(nodoInicio, nodoDestino, caminoActual, todosLosCaminos);
+    //Vuelos que salen del vertice, en O(grado de salida)
+    public List<Vuelo> getVuelosSalientes(V data) {
+        Nodo<V, E> nodo = buscarNodo(data);
+        return (nodo != null) ? aVuelos(nodo.adyacentes) : new ArrayList<>();
+    }
 
-        for (LinkedList<Nodo<V, E>> camino : todosLosCaminos) {
-            LinkedList<Aeropuerto> aeropuertosEnRuta = new LinkedList<>();
-            double pesoTotal = 0.0;
-            Nodo<V, E> previo = null;
+    //Vuelos que llegan al vertice, en O(grado de entrada)
+    public List<Vuelo> getVuelosEntrantes(V data) {
+        Nodo<V, E> nodo = buscarNodo(data);
+        return (nodo != null) ? aVuelos(nodo.entrantes) : new ArrayList<>();
+    }
 
-            for (Nodo<V, E> paso : camino) {
-                aeropuertosEnRuta.add((Aeropuerto) paso.data);
-                if (previo != null) {
-                    Arista<V, E> arista = encontrarArista(previo, paso);
-                    if (arista != null) {
-                        pesoTotal += calcularPesoArista(arista, criterio);
-                    }
-                }
-                previo = paso;
-            }
-            rutasEncontradas.add(new Ruta(aeropuertosEnRuta, pesoTotal, criterio));
+    private List<Vuelo> aVuelos(List<Arista<V, E>> aristas) {
+        List<Vuelo> vuelos = new ArrayList<>(aristas.size());
+        for (Arista<V, E> arista : aristas) {
+            vuelos.add(aVuelo(arista, demanda.valor(arista.id)));
         }
+        return vuelos;
+    }
+
+    public int getNumeroDeAristas() {
+        return numeroAristas;
+    }
 
-        rutasEncontradas.sort(Comparator.comparingDouble(Ruta::getPesoTotal));
-        return rutasEncontradas.subList(0, Math.min(maxRutas, rutasEncontradas.size()));
+    //Recorrido perezoso de los vuelos en orden de id: cada Vuelo se crea al llegar a el, sin copiar la red.
+    //El stream puede hacerse paralelo (.parallel()); no debe modificarse el grafo mientras se recorre.
+    public Stream<Vuelo> getVuelos() {
+        return StreamSupport.stream(new DivisorAristas(0, aristasPorId.size()), false);
+    }
+
+    //Copia de todos los vuelos en una lista; para recorrerlos basta con getVuelos()
+    public List<Vuelo> getTodosLosVuelos() {
+        return getVuelos().collect(Collectors.toCollection(() -> new ArrayList<>(numeroAristas)));
     }
 
-    private void buscarCaminosDFS(Nodo<V, E> actual, Nodo<V, E> destino, LinkedList<Nodo<V, E>> caminoActual, List<LinkedList<Nodo<V, E>>> todosLosCaminos) {
-        if (actual.equals(destino)) {
-            todosLosCaminos.add(new LinkedList<>(caminoActual));
-            return;
+    //Spliterator sobre un rango de ids de aristasPorId; se divide por la mitad del rango
+    private final class DivisorAristas implements Spliterator<Vuelo> {
+        private int actual;
+        private final int fin;
+
+        DivisorAristas(int inicio, int fin) {
+            this.actual = inicio;
+            this.fin = fin;
         }
 
-        for (Arista<V, E> arista : actual.adyacentes) {
-            Nodo<V, E> vecino = arista.destino;
-            if (!caminoActual.contains(vecino)) {
-                caminoActual.addLast(vecino);
-                buscarCaminosDFS(vecino, destino, caminoActual, todosLosCaminos);
-                caminoActual.removeLast();
+        @Override
+        public boolean tryAdvance(Consumer<? super Vuelo> accion) {
+            while (actual < fin) {
+                Arista<V, E> arista = aristasPorId.get(actual++);
+                if (arista != null) {
+                    accion.accept(aVuelo(arista, demanda.valor(arista.id)));
+                    return true;
+                }
             }
+            return false;
         }
-    }
 
-    private Arista<V, E> encontrarArista(Nodo<V, E> origen, Nodo<V, E> destino) {
-        for (Arista<V, E> arista : origen.adyacentes) {
-            if (arista.destino.equals(destino)) {
-                return arista;
+        @Override
+        public void forEachRemaining(Consumer<? super Vuelo> accion) {
+            for (; actual < fin; actual++) {
+                Arista<V, E> arista = aristasPorId.get(actual);
+                if (arista != null) {
+                    accion.accept(aVuelo(arista, demanda.valor(arista.id)));
+                }
             }
         }
-        return null;
-    }
 
-    private double calcularPesoArista(Arista<V, E> arista, Ruta.Criterio criterio) {
-        PesoVuelo pesoVuelo = (PesoVuelo) arista.peso;
-        switch (criterio) {
-            case TIEMPO: return pesoVuelo.getTiempo();
-            case COSTO: return pesoVuelo.getCosto();
-            default: return pesoVuelo.getDistancia();
+        @Override
+        public Spliterator<Vuelo> trySplit() {
+            int medio = (actual + fin) >>> 1;
+            if (medio - actual < 1024) return null;
+            DivisorAristas primeraMitad = new DivisorAristas(actual, medio);
+            actual = medio;
+            return primeraMitad;
+        }
+
+        @Override
+        public long estimateSize() {
+            // Cota superior: los ids de aristas eliminadas no producen vuelos
+            return fin - actual;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
         }
     }
+
+    private Vuelo aVuelo(Arista<V, E> arista, long demandaVuelo) {
+        return new Vuelo(arista.id, (Aeropuerto) arista.origen.data, (Aeropuerto) arista.destino.data, (PesoVuelo) arista.peso, demandaVuelo);
+    }
+
+    //Dijkstra sobre la red compilada: el estado de la busqueda es propio de cada consulta,
+    //por lo que varias consultas pueden ejecutarse en paralelo sobre el mismo grafo
+    public Ruta encontrarRutaMasCorta(V origenData, V destinoData, Ruta.Criterio criterio) {
+        return getRedCompilada().encontrarRutaMasCorta((Aeropuerto) origenData, (Aeropuerto) destinoData, criterio);
+    }
+
+    public Ruta encontrarRutaMasCorta(V origenData, V destinoData, Ruta.Criterio criterio, Ruta.Algoritmo algoritmo) {
+        return getRedCompilada().encontrarRutaMasCorta((Aeropuerto) origenData, (Aeropuerto) destinoData, criterio, algoritmo);
+    }
+
+    //Rutas alternativas sin ciclos (algoritmo de Yen), ordenadas de menor a mayor peso
+    public List<Ruta> encontrarRutasAlternativas(V origenData, V destinoData, Ruta.Criterio criterio, int maxRutas) {
+        return getRedCompilada().encontrarRutasAlternativas((Aeropuerto) origenData, (Aeropuerto) destinoData, criterio, maxRutas);
+    }
 }
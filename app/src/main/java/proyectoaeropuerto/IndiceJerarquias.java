@@ -0,0 +1,89 @@
+package proyectoaeropuerto;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+//Jerarquias de contraccion vigentes por criterio. Se construyen en segundo plano a partir de la
+//RedCompilada (inmutable) de la version actual; mientras no haya una vigente las consultas deben
+//resolverse con otro algoritmo. Un cambio en el grafo vuelve obsoletas las existentes.
+//Las construcciones se agrupan: solo se construye la version mas reciente pedida y cuando la red lleva
+//ESPERA_SIN_CAMBIOS_MS sin cambiar, asi una serie de ediciones seguidas no lanza una construccion por edicion.
+class IndiceJerarquias {
+    private static final long ESPERA_SIN_CAMBIOS_MS = 500;
+    private final Map<Ruta.Criterio, JerarquiaContraccion> jerarquias = new ConcurrentHashMap<>();
+    //Red mas reciente pedida por criterio que todavia no tiene jerarquia
+    private final Map<Ruta.Criterio, Pendiente> pendientes = new ConcurrentHashMap<>();
+    //Criterios con una construccion programada o en curso
+    private final Set<Ruta.Criterio> programados = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService constructor;
+
+    private static final class Pendiente {
+        final RedCompilada red;
+        //Cuando se pidio esta version por primera vez
+        final long desde = System.nanoTime();
+
+        Pendiente(RedCompilada red) {
+            this.red = red;
+        }
+    }
+
+    //Devuelve la jerarquia del criterio si corresponde a la version de la red; si no, programa
+    //su construccion y devuelve null
+    JerarquiaContraccion obtener(RedCompilada red, Ruta.Criterio criterio) {
+        JerarquiaContraccion jerarquia = jerarquias.get(criterio);
+        if (jerarquia != null && jerarquia.getVersion() >= red.getVersion()) {
+            // Una consulta que tomo la red antes de un cambio no debe pedir la version anterior
+            return (jerarquia.getVersion() == red.getVersion()) ? jerarquia : null;
+        }
+        pendientes.merge(criterio, new Pendiente(red),
+            (actual, nueva) -> (nueva.red.getVersion() > actual.red.getVersion()) ? nueva : actual);
+        programar(criterio, ESPERA_SIN_CAMBIOS_MS);
+        return null;
+    }
+
+    private void programar(Ruta.Criterio criterio, long esperaMs) {
+        if (programados.add(criterio)) {
+            ejecutor().schedule(() -> construir(criterio), esperaMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //Construye la version pendiente si ya paso la espera desde que se pidio; si no, vuelve a esperar.
+    //Las versiones que se superan mientras tanto no se llegan a construir
+    private void construir(Ruta.Criterio criterio) {
+        Pendiente pendiente = pendientes.get(criterio);
+        if (pendiente == null) {
+            programados.remove(criterio);
+            return;
+        }
+        long esperaMs = ESPERA_SIN_CAMBIOS_MS - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendiente.desde);
+        if (esperaMs > 0) {
+            ejecutor().schedule(() -> construir(criterio), esperaMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+        try {
+            jerarquias.put(criterio, new JerarquiaContraccion(pendiente.red, criterio));
+        } finally {
+            pendientes.remove(criterio, pendiente);
+            programados.remove(criterio);
+            // Si se pidio una version mas nueva durante la construccion, se programa la siguiente
+            if (pendientes.containsKey(criterio)) {
+                programar(criterio, 0);
+            }
+        }
+    }
+
+    private synchronized ScheduledExecutorService ejecutor() {
+        if (constructor == null) {
+            constructor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "jerarquias-contraccion");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        return constructor;
+    }
+}
@@ -0,0 +1,413 @@
+package proyectoaeropuerto;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+//Indice de jerarquias de contraccion (contraction hierarchies) para un criterio sobre una RedCompilada.
+//En el preprocesamiento los vertices se contraen de a uno, del menos al mas importante, agregando
+//atajos para conservar los caminos minimos entre los vecinos que quedan. Una consulta es un Dijkstra
+//bidireccional que solo sube en la jerarquia, por lo que asienta muy pocos vertices.
+//Cuando contraer el siguiente vertice exigiria demasiados atajos (los vertices que quedan forman un
+//nucleo denso, tipicamente los hubs) la contraccion se detiene y la consulta recorre ese nucleo sin
+//restriccion de subida.
+//Es inmutable una vez construido; si la red cambia hay que construir otro.
+public class JerarquiaContraccion {
+    //Vertices asentados como maximo por cada busqueda de testigos durante la contraccion
+    private static final int LIMITE_TESTIGOS = 100;
+    //Atajos que puede agregar la contraccion de un vertice antes de dar por formado el nucleo
+    private static final int LIMITE_ATAJOS_NUCLEO = 30;
+
+    private final RedCompilada red;
+    private final Ruta.Criterio criterio;
+    private final int numeroVertices;
+    //Vertices que quedaron sin contraer (el nucleo)
+    private final int verticesNucleo;
+
+    //Arcos: aristas originales (sin paralelas ni lazos) y atajos. Un atajo guarda los dos arcos que reemplaza.
+    private int numeroArcos;
+    private int[] arcoDesde;
+    private int[] arcoHasta;
+    private double[] arcoPeso;
+    private int[] arcoOriginal;
+    private int[] arcoPrimero;
+    private int[] arcoSegundo;
+
+    //Grafo de busqueda: arcos hacia vertices de mayor rango (o dentro del nucleo), hacia adelante y hacia atras
+    private final int[] inicioSubida;
+    private final int[] arcosSubida;
+    private final int[] inicioBajada;
+    private final int[] arcosBajada;
+
+    public JerarquiaContraccion(RedCompilada red, Ruta.Criterio criterio) {
+        this.red = red;
+        this.criterio = criterio;
+        this.numeroVertices = red.getNumeroDeVertices();
+        int capacidad = Math.max(16, red.getNumeroDeAristas());
+        this.arcoDesde = new int[capacidad];
+        this.arcoHasta = new int[capacidad];
+        this.arcoPeso = new double[capacidad];
+        this.arcoOriginal = new int[capacidad];
+        this.arcoPrimero = new int[capacidad];
+        this.arcoSegundo = new int[capacidad];
+
+        int[] rango = new Contraccion().contraer();
+        int nucleo = 0;
+        for (int v = 0; v < numeroVertices; v++) {
+            if (rango[v] == numeroVertices) nucleo++;
+        }
+        this.verticesNucleo = nucleo;
+
+        // Separar los arcos segun suban o bajen en la jerarquia (CSR por conteo)
+        this.inicioSubida = new int[numeroVertices + 1];
+        this.inicioBajada = new int[numeroVertices + 1];
+        for (int arco = 0; arco < numeroArcos; arco++) {
+            if (rango[arcoDesde[arco]] <= rango[arcoHasta[arco]]) inicioSubida[arcoDesde[arco] + 1]++;
+            if (rango[arcoDesde[arco]] >= rango[arcoHasta[arco]]) inicioBajada[arcoHasta[arco] + 1]++;
+        }
+        for (int v = 0; v < numeroVertices; v++) {
+            inicioSubida[v + 1] += inicioSubida[v];
+            inicioBajada[v + 1] += inicioBajada[v];
+        }
+        this.arcosSubida = new int[inicioSubida[numeroVertices]];
+        this.arcosBajada = new int[inicioBajada[numeroVertices]];
+        int[] siguienteSubida = Arrays.copyOf(inicioSubida, numeroVertices);
+        int[] siguienteBajada = Arrays.copyOf(inicioBajada, numeroVertices);
+        for (int arco = 0; arco < numeroArcos; arco++) {
+            if (rango[arcoDesde[arco]] <= rango[arcoHasta[arco]]) arcosSubida[siguienteSubida[arcoDesde[arco]]++] = arco;
+            if (rango[arcoDesde[arco]] >= rango[arcoHasta[arco]]) arcosBajada[siguienteBajada[arcoHasta[arco]]++] = arco;
+        }
+    }
+
+    public long getVersion() {
+        return red.getVersion();
+    }
+
+    public Ruta.Criterio getCriterio() {
+        return criterio;
+    }
+
+    //0 si se contrajeron todos los vertices
+    int getVerticesNucleo() {
+        return verticesNucleo;
+    }
+
+    public int getNumeroDeAtajos() {
+        int atajos = 0;
+        for (int arco = 0; arco < numeroArcos; arco++) {
+            if (arcoOriginal[arco] == -1) atajos++;
+        }
+        return atajos;
+    }
+
+    public Ruta encontrarRutaMasCorta(Aeropuerto origen, Aeropuerto destino) {
+        int idOrigen = red.getId(origen);
+        int idDestino = red.getId(destino);
+        if (idOrigen == -1 || idDestino == -1) {
+            return new Ruta(new LinkedList<>(), -1, criterio); // Devuelve ruta vacía si no existen los nodos
+        }
+
+        ContextoBusqueda adelante = ContextoBusqueda.obtener(numeroVertices);
+        try {
+            ContextoBusqueda atras = adelante.inverso();
+            adelante.actualizar(idOrigen, 0, -1);
+            adelante.cola.insertar(idOrigen, 0);
+            atras.actualizar(idDestino, 0, -1);
+            atras.cola.insertar(idDestino, 0);
+
+            double mejorPeso = Double.POSITIVE_INFINITY;
+            int encuentro = -1;
+            while (true) {
+                boolean seguirAdelante = !adelante.cola.estaVacio() && adelante.cola.prioridadMinima() < mejorPeso;
+                boolean seguirAtras = !atras.cola.estaVacio() && atras.cola.prioridadMinima() < mejorPeso;
+                if (!seguirAdelante && !seguirAtras) break;
+                boolean haciaAdelante = seguirAdelante && (!seguirAtras || adelante.cola.prioridadMinima() <= atras.cola.prioridadMinima());
+
+                ContextoBusqueda lado = haciaAdelante ? adelante : atras;
+                ContextoBusqueda otro = haciaAdelante ? atras : adelante;
+                int actual = lado.cola.extraerMinimo();
+                if (lado.esVisitado(actual)) continue;
+                lado.marcarVisitado(actual);
+                double base = lado.getPesoAcumulado(actual);
+                if (base + otro.getPesoAcumulado(actual) < mejorPeso) {
+                    mejorPeso = base + otro.getPesoAcumulado(actual);
+                    encuentro = actual;
+                }
+
+                int[] inicio = haciaAdelante ? inicioSubida : inicioBajada;
+                int[] arcos = haciaAdelante ? arcosSubida : arcosBajada;
+                for (int i = inicio[actual], fin = inicio[actual + 1]; i < fin; i++) {
+                    int arco = arcos[i];
+                    int vecino = haciaAdelante ? arcoHasta[arco] : arcoDesde[arco];
+                    double nuevoPeso = base + arcoPeso[arco];
+                    if (!lado.esVisitado(vecino) && nuevoPeso < lado.getPesoAcumulado(vecino)) {
+                        lado.actualizar(vecino, nuevoPeso, arco);
+                        lado.cola.insertar(vecino, nuevoPeso);
+                    }
+                }
+            }
+            if (encuentro == -1) {
+                return new Ruta(new LinkedList<>(), Double.POSITIVE_INFINITY, criterio);
+            }
+
+            // Arcos del origen al encuentro y del encuentro al destino, desempaquetando los atajos
+            AristasRuta subida = new AristasRuta();
+            for (int paso = encuentro; paso != idOrigen; paso = arcoDesde[adelante.getPredecesor(paso)]) {
+                subida.agregar(adelante.getPredecesor(paso));
+            }
+            AristasRuta aristas = new AristasRuta();
+            for (int i = subida.tamano - 1; i >= 0; i--) {
+                desempaquetar(subida.aristas[i], aristas);
+            }
+            for (int paso = encuentro; paso != idDestino; paso = arcoHasta[atras.getPredecesor(paso)]) {
+                desempaquetar(atras.getPredecesor(paso), aristas);
+            }
+            return red.construirRuta(idOrigen, aristas.aArreglo(), criterio);
+        } finally {
+            adelante.liberar();
+        }
+    }
+
+    //Agrega en orden las aristas originales que representa el arco
+    private void desempaquetar(int arco, AristasRuta aristas) {
+        int[] pila = new int[16];
+        int tope = 0;
+        pila[tope++] = arco;
+        while (tope > 0) {
+            int actual = pila[--tope];
+            if (arcoOriginal[actual] != -1) {
+                aristas.agregar(arcoOriginal[actual]);
+            } else {
+                if (tope + 2 > pila.length) pila = Arrays.copyOf(pila, pila.length * 2);
+                pila[tope++] = arcoSegundo[actual];
+                pila[tope++] = arcoPrimero[actual];
+            }
+        }
+    }
+
+    private int agregarArco(int desde, int hasta, double peso, int original, int primero, int segundo) {
+        if (numeroArcos == arcoDesde.length) {
+            int capacidad = numeroArcos * 2;
+            arcoDesde = Arrays.copyOf(arcoDesde, capacidad);
+            arcoHasta = Arrays.copyOf(arcoHasta, capacidad);
+            arcoPeso = Arrays.copyOf(arcoPeso, capacidad);
+            arcoOriginal = Arrays.copyOf(arcoOriginal, capacidad);
+            arcoPrimero = Arrays.copyOf(arcoPrimero, capacidad);
+            arcoSegundo = Arrays.copyOf(arcoSegundo, capacidad);
+        }
+        arcoDesde[numeroArcos] = desde;
+        arcoHasta[numeroArcos] = hasta;
+        arcoPeso[numeroArcos] = peso;
+        arcoOriginal[numeroArcos] = original;
+        arcoPrimero[numeroArcos] = primero;
+        arcoSegundo[numeroArcos] = segundo;
+        return numeroArcos++;
+    }
+
+    //Estado temporal del preprocesamiento: listas de arcos entrantes y salientes de cada vertice
+    private class Contraccion {
+        private final int[][] salientes = new int[numeroVertices][];
+        private final int[] numeroSalientes = new int[numeroVertices];
+        private final int[][] entrantes = new int[numeroVertices][];
+        private final int[] numeroEntrantes = new int[numeroVertices];
+        private final boolean[] contraido = new boolean[numeroVertices];
+        private final int[] vecinosContraidos = new int[numeroVertices];
+        private final int[] nivel = new int[numeroVertices];
+        private final int[] marcaVecino = new int[numeroVertices];
+        //Busqueda de testigos: pesos con marca de generacion, como en ContextoBusqueda
+        private final double[] pesoTestigo = new double[numeroVertices];
+        private final int[] marcaTestigo = new int[numeroVertices];
+        private final MonticuloBinario colaTestigos = new MonticuloBinario(64);
+        private int generacion;
+        private int ultimosAtajos;
+
+        Contraccion() {
+            // Arcos iniciales: la arista mas barata entre cada par de vertices distintos
+            int[] mejorArco = new int[numeroVertices];
+            int[] marca = new int[numeroVertices];
+            for (int v = 0; v < numeroVertices; v++) {
+                salientes[v] = new int[4];
+                entrantes[v] = new int[4];
+            }
+            for (int u = 0; u < numeroVertices; u++) {
+                for (int a = red.inicioAristas(u), fin = red.finAristas(u); a < fin; a++) {
+                    int v = red.destinoDe(a);
+                    if (v == u) continue;
+                    double peso = red.peso(a, criterio);
+                    if (marca[v] == u + 1) {
+                        int arco = mejorArco[v];
+                        if (peso < arcoPeso[arco]) {
+                            arcoPeso[arco] = peso;
+                            arcoOriginal[arco] = a;
+                        }
+                    } else {
+                        marca[v] = u + 1;
+                        mejorArco[v] = agregarArco(u, v, peso, a, -1, -1);
+                        enlazar(mejorArco[v]);
+                    }
+                }
+            }
+        }
+
+        //Contrae los vertices hasta llegar al nucleo y devuelve el rango (orden de contraccion) de cada
+        //uno; los del nucleo comparten el rango maximo
+        int[] contraer() {
+            int[] rango = new int[numeroVertices];
+            Arrays.fill(rango, numeroVertices);
+            double[] prioridad = new double[numeroVertices];
+            MonticuloBinario cola = new MonticuloBinario(numeroVertices);
+            for (int v = 0; v < numeroVertices; v++) {
+                prioridad[v] = calcularPrioridad(v);
+                cola.insertar(v, prioridad[v]);
+            }
+            int siguienteRango = 0;
+            while (!cola.estaVacio()) {
+                double prioridadExtraida = cola.prioridadMinima();
+                int v = cola.extraerMinimo();
+                if (contraido[v] || prioridadExtraida != prioridad[v]) continue;
+                // Actualizacion perezosa: si la prioridad empeoro, se vuelve a encolar
+                double actual = calcularPrioridad(v);
+                if (actual > prioridad[v] && !cola.estaVacio() && actual > cola.prioridadMinima()) {
+                    prioridad[v] = actual;
+                    cola.insertar(v, actual);
+                    continue;
+                }
+                if (ultimosAtajos > LIMITE_ATAJOS_NUCLEO) break; // Los que quedan forman el nucleo
+                contraerVertice(v, false);
+                contraido[v] = true;
+                rango[v] = siguienteRango++;
+                // Los vecinos pierden los arcos hacia v y sube su prioridad
+                for (int i = 0; i < numeroSalientes[v]; i++) actualizarVecino(arcoHasta[salientes[v][i]], v, prioridad, cola);
+                for (int i = 0; i < numeroEntrantes[v]; i++) actualizarVecino(arcoDesde[entrantes[v][i]], v, prioridad, cola);
+            }
+            return rango;
+        }
+
+        private void actualizarVecino(int vecino, int contraidoAhora, double[] prioridad, MonticuloBinario cola) {
+            if (contraido[vecino] || marcaVecino[vecino] == contraidoAhora + 1) return;
+            marcaVecino[vecino] = contraidoAhora + 1;
+            numeroSalientes[vecino] = quitarContraidos(salientes[vecino], numeroSalientes[vecino], arcoHasta);
+            numeroEntrantes[vecino] = quitarContraidos(entrantes[vecino], numeroEntrantes[vecino], arcoDesde);
+            // Solo se ajustan los terminos baratos; la simulacion completa se hace al extraerlo de la cola
+            int nuevoNivel = Math.max(nivel[vecino], nivel[contraidoAhora] + 1);
+            prioridad[vecino] += 1 + nuevoNivel - nivel[vecino];
+            vecinosContraidos[vecino]++;
+            nivel[vecino] = nuevoNivel;
+            cola.insertar(vecino, prioridad[vecino]);
+        }
+
+        private int quitarContraidos(int[] arcos, int cantidad, int[] extremo) {
+            int quedan = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (!contraido[extremo[arcos[i]]]) arcos[quedan++] = arcos[i];
+            }
+            return quedan;
+        }
+
+        //Diferencia de aristas (atajos nuevos menos aristas eliminadas), vecinos ya contraidos y
+        //nivel en la jerarquia, para contraer primero los vertices poco importantes y repartidos
+        private double calcularPrioridad(int v) {
+            ultimosAtajos = contraerVertice(v, true);
+            return 2 * (ultimosAtajos - numeroSalientes[v] - numeroEntrantes[v]) + vecinosContraidos[v] + nivel[v];
+        }
+
+        //Agrega (o solo cuenta, si simular) los atajos necesarios para sacar a v del grafo
+        private int contraerVertice(int v, boolean simular) {
+            int atajos = 0;
+            for (int i = 0; i < numeroEntrantes[v]; i++) {
+                int arcoEntrada = entrantes[v][i];
+                int u = arcoDesde[arcoEntrada];
+                if (contraido[u]) continue;
+                double limite = -1;
+                for (int j = 0; j < numeroSalientes[v]; j++) {
+                    int x = arcoHasta[salientes[v][j]];
+                    if (!contraido[x] && x != u) limite = Math.max(limite, arcoPeso[arcoEntrada] + arcoPeso[salientes[v][j]]);
+                }
+                if (limite < 0) continue; // No hay vecinos de salida que conectar con u
+                buscarTestigos(u, v, limite);
+                for (int j = 0; j < numeroSalientes[v]; j++) {
+                    int arcoSalida = salientes[v][j];
+                    int x = arcoHasta[arcoSalida];
+                    if (contraido[x] || x == u) continue;
+                    double pesoAtajo = arcoPeso[arcoEntrada] + arcoPeso[arcoSalida];
+                    if (pesoTestigo(x) <= pesoAtajo) continue; // Hay un camino igual de bueno que no pasa por v
+                    atajos++;
+                    if (!simular) agregarAtajo(u, x, pesoAtajo, arcoEntrada, arcoSalida);
+                }
+            }
+            return atajos;
+        }
+
+        //Dijkstra acotado desde u sin pasar por v ni por vertices contraidos
+        private void buscarTestigos(int u, int v, double limite) {
+            generacion++;
+            colaTestigos.limpiar();
+            marcaTestigo[u] = generacion;
+            pesoTestigo[u] = 0;
+            colaTestigos.insertar(u, 0);
+            int asentados = 0;
+            while (!colaTestigos.estaVacio() && asentados < LIMITE_TESTIGOS) {
+                double base = colaTestigos.prioridadMinima();
+                int actual = colaTestigos.extraerMinimo();
+                if (base > pesoTestigo(actual)) continue;
+                if (base > limite) break;
+                asentados++;
+                for (int i = 0; i < numeroSalientes[actual]; i++) {
+                    int arco = salientes[actual][i];
+                    int vecino = arcoHasta[arco];
+                    if (vecino == v || contraido[vecino]) continue;
+                    double nuevoPeso = base + arcoPeso[arco];
+                    if (nuevoPeso < pesoTestigo(vecino)) {
+                        marcaTestigo[vecino] = generacion;
+                        pesoTestigo[vecino] = nuevoPeso;
+                        colaTestigos.insertar(vecino, nuevoPeso);
+                    }
+                }
+            }
+        }
+
+        private double pesoTestigo(int vertice) {
+            return (marcaTestigo[vertice] == generacion) ? pesoTestigo[vertice] : Double.POSITIVE_INFINITY;
+        }
+
+        private void agregarAtajo(int u, int x, double peso, int primero, int segundo) {
+            // Si ya existe un arco u -> x mas caro, se reemplaza en lugar de duplicarlo
+            for (int i = 0; i < numeroSalientes[u]; i++) {
+                int arco = salientes[u][i];
+                if (arcoHasta[arco] == x) {
+                    if (peso < arcoPeso[arco]) {
+                        arcoPeso[arco] = peso;
+                        arcoOriginal[arco] = -1;
+                        arcoPrimero[arco] = primero;
+                        arcoSegundo[arco] = segundo;
+                    }
+                    return;
+                }
+            }
+            enlazar(agregarArco(u, x, peso, -1, primero, segundo));
+        }
+
+        private void enlazar(int arco) {
+            int desde = arcoDesde[arco];
+            int hasta = arcoHasta[arco];
+            if (numeroSalientes[desde] == salientes[desde].length) salientes[desde] = Arrays.copyOf(salientes[desde], numeroSalientes[desde] * 2);
+            salientes[desde][numeroSalientes[desde]++] = arco;
+            if (numeroEntrantes[hasta] == entrantes[hasta].length) entrantes[hasta] = Arrays.copyOf(entrantes[hasta], numeroEntrantes[hasta] * 2);
+            entrantes[hasta][numeroEntrantes[hasta]++] = arco;
+        }
+    }
+
+    //Lista creciente de indices de aristas de la red
+    private static class AristasRuta {
+        private int[] aristas = new int[8];
+        private int tamano;
+
+        void agregar(int arista) {
+            if (tamano == aristas.length) aristas = Arrays.copyOf(aristas, tamano * 2);
+            aristas[tamano++] = arista;
+        }
+
+        int[] aArreglo() {
+            return Arrays.copyOf(aristas, tamano);
+        }
+    }
+}
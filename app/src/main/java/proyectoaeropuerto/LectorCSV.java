@@ -0,0 +1,273 @@
+package proyectoaeropuerto;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Lector por bloques del formato de datos (lineas AEROPUERTO y VUELO separadas por comas).
+//El texto se lee en bloques de lineas completas que se analizan en paralelo; los resultados se
+//entregan en el orden del archivo y solo hay unos pocos bloques en memoria a la vez.
+//Los campos se separan y los numeros se convierten directamente sobre el arreglo de caracteres.
+class LectorCSV {
+    private static final int TAMANO_BLOQUE = 1 << 20;
+    private static final int MAXIMO_CAMPOS = 8;
+    //Potencias de 10 exactas en double, para convertir decimales cortos sin perder precision
+    private static final double[] POTENCIAS_10 = new double[23];
+
+    static {
+        POTENCIAS_10[0] = 1;
+        for (int i = 1; i < POTENCIAS_10.length; i++) {
+            POTENCIAS_10[i] = POTENCIAS_10[i - 1] * 10;
+        }
+    }
+
+    //Recibe, en el orden del archivo, los registros leidos y las lineas que no se pudieron interpretar
+    interface Destino {
+        void lote(List<Aeropuerto> aeropuertos, List<RegistroVuelo> vuelos);
+
+        void lineaInvalida(int numeroLinea, String linea, String motivo);
+    }
+
+    private final int hilos;
+
+    LectorCSV() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    LectorCSV(int hilos) {
+        this.hilos = Math.max(1, hilos);
+    }
+
+    void leer(Reader reader, Destino destino) throws IOException {
+        ExecutorService analizadores = null;
+        ArrayDeque<Future<Bloque>> pendientes = new ArrayDeque<>();
+        try {
+            char[] buffer = new char[TAMANO_BLOQUE];
+            int usados = 0;
+            int siguienteLinea = 1;
+            while (true) {
+                int leidos = reader.read(buffer, usados, buffer.length - usados);
+                if (leidos == -1) {
+                    // Ultimo bloque: si no quedan otros en curso se analiza en este mismo hilo
+                    if (usados > 0) {
+                        char[] texto = Arrays.copyOf(buffer, usados);
+                        if (pendientes.isEmpty()) {
+                            entregar(analizar(texto, siguienteLinea), destino);
+                        } else {
+                            final int primeraLinea = siguienteLinea;
+                            pendientes.add(analizadores.submit(() -> analizar(texto, primeraLinea)));
+                        }
+                    }
+                    break;
+                }
+                usados += leidos;
+                if (usados < buffer.length) continue;
+
+                int fin = usados - 1;
+                while (fin >= 0 && buffer[fin] != '\n') fin--;
+                if (fin < 0) {
+                    // Una linea mas larga que el bloque: se agranda el buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                char[] texto = Arrays.copyOf(buffer, fin + 1);
+                System.arraycopy(buffer, fin + 1, buffer, 0, usados - fin - 1);
+                usados -= fin + 1;
+
+                if (analizadores == null) {
+                    analizadores = Executors.newFixedThreadPool(hilos, tarea -> {
+                        Thread hilo = new Thread(tarea, "lector-csv");
+                        hilo.setDaemon(true);
+                        return hilo;
+                    });
+                }
+                final int primeraLinea = siguienteLinea;
+                pendientes.add(analizadores.submit(() -> analizar(texto, primeraLinea)));
+                for (char c : texto) {
+                    if (c == '\n') siguienteLinea++;
+                }
+                // Ventana acotada de bloques en curso; se entregan en orden
+                while (pendientes.size() > 2 * hilos) {
+                    entregar(esperar(pendientes.poll()), destino);
+                }
+            }
+            while (!pendientes.isEmpty()) {
+                entregar(esperar(pendientes.poll()), destino);
+            }
+        } finally {
+            if (analizadores != null) {
+                analizadores.shutdownNow();
+            }
+        }
+    }
+
+    private static Bloque esperar(Future<Bloque> futuro) throws IOException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lectura interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error al analizar el archivo", e.getCause());
+        }
+    }
+
+    private static void entregar(Bloque bloque, Destino destino) {
+        for (int i = 0; i < bloque.lineasInvalidas.size(); i++) {
+            destino.lineaInvalida(bloque.numerosLineasInvalidas.get(i), bloque.lineasInvalidas.get(i), bloque.motivos.get(i));
+        }
+        destino.lote(bloque.aeropuertos, bloque.vuelos);
+    }
+
+    //Analiza un bloque de lineas completas; primeraLinea es el numero de su primera linea en el archivo
+    static Bloque analizar(char[] texto, int primeraLinea) {
+        Bloque bloque = new Bloque();
+        int[] inicios = new int[MAXIMO_CAMPOS];
+        int[] fines = new int[MAXIMO_CAMPOS];
+        int numeroLinea = primeraLinea;
+        int inicioLinea = 0;
+        while (inicioLinea < texto.length) {
+            int finLinea = inicioLinea;
+            while (finLinea < texto.length && texto[finLinea] != '\n') finLinea++;
+            analizarLinea(texto, inicioLinea, finLinea, numeroLinea, inicios, fines, bloque);
+            inicioLinea = finLinea + 1;
+            numeroLinea++;
+        }
+        return bloque;
+    }
+
+    private static void analizarLinea(char[] texto, int inicio, int fin, int numeroLinea, int[] inicios, int[] fines, Bloque bloque) {
+        // Separar campos por coma, sin espacios alrededor (incluye el \r de los finales de linea CRLF)
+        int campos = 0;
+        int inicioCampo = inicio;
+        for (int i = inicio; i <= fin; i++) {
+            if (i == fin || texto[i] == ',') {
+                if (campos < MAXIMO_CAMPOS) {
+                    int a = inicioCampo;
+                    int b = i;
+                    while (a < b && texto[a] <= ' ') a++;
+                    while (b > a && texto[b - 1] <= ' ') b--;
+                    inicios[campos] = a;
+                    fines[campos] = b;
+                }
+                campos++;
+                inicioCampo = i + 1;
+            }
+        }
+        if (campos == 1 && inicios[0] == fines[0]) return; // Linea en blanco
+
+        try {
+            if (esTipo(texto, inicios[0], fines[0], "AEROPUERTO")) {
+                if (campos < 4) throw new IllegalArgumentException("se esperaban al menos 4 campos");
+                String codigo = texto(texto, inicios[1], fines[1]);
+                String nombre = texto(texto, inicios[2], fines[2]);
+                String ciudad = texto(texto, inicios[3], fines[3]);
+                if (codigo.isEmpty()) throw new IllegalArgumentException("codigo IATA vacio");
+                if (campos >= 6) {
+                    // Columnas opcionales de latitud y longitud
+                    bloque.aeropuertos.add(new Aeropuerto(codigo, nombre, ciudad,
+                        decimal(texto, inicios[4], fines[4]), decimal(texto, inicios[5], fines[5])));
+                } else {
+                    bloque.aeropuertos.add(new Aeropuerto(codigo, nombre, ciudad));
+                }
+            } else if (esTipo(texto, inicios[0], fines[0], "VUELO")) {
+                if (campos < 6) throw new IllegalArgumentException("se esperaban al menos 6 campos");
+                int demanda = (campos > 6) ? entero(texto, inicios[6], fines[6]) : 0;
+                // Columna opcional con el id del vuelo
+                int id = (campos > 7) ? entero(texto, inicios[7], fines[7]) : -1;
+                bloque.vuelos.add(new RegistroVuelo(texto(texto, inicios[1], fines[1]), texto(texto, inicios[2], fines[2]),
+                    entero(texto, inicios[3], fines[3]), entero(texto, inicios[4], fines[4]), decimal(texto, inicios[5], fines[5]), demanda, id));
+            } else {
+                throw new IllegalArgumentException("tipo de registro desconocido");
+            }
+        } catch (IllegalArgumentException e) {
+            bloque.numerosLineasInvalidas.add(numeroLinea);
+            bloque.lineasInvalidas.add(new String(texto, inicio, fin - inicio).trim());
+            bloque.motivos.add(e.getMessage());
+        }
+    }
+
+    private static boolean esTipo(char[] texto, int inicio, int fin, String tipo) {
+        if (fin - inicio != tipo.length()) return false;
+        for (int i = 0; i < tipo.length(); i++) {
+            if (Character.toUpperCase(texto[inicio + i]) != tipo.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String texto(char[] texto, int inicio, int fin) {
+        return new String(texto, inicio, fin - inicio);
+    }
+
+    static int entero(char[] texto, int inicio, int fin) {
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fin && (texto[i] == '-' || texto[i] == '+')) {
+            negativo = texto[i] == '-';
+            i++;
+        }
+        if (i == fin) throw new NumberFormatException("numero entero invalido: '" + texto(texto, inicio, fin) + "'");
+        long valor = 0;
+        for (; i < fin; i++) {
+            int digito = texto[i] - '0';
+            if (digito < 0 || digito > 9) throw new NumberFormatException("numero entero invalido: '" + texto(texto, inicio, fin) + "'");
+            valor = valor * 10 + digito;
+            if (valor > (long) Integer.MAX_VALUE + 1) throw new NumberFormatException("numero entero fuera de rango: '" + texto(texto, inicio, fin) + "'");
+        }
+        valor = negativo ? -valor : valor;
+        if (valor > Integer.MAX_VALUE) throw new NumberFormatException("numero entero fuera de rango: '" + texto(texto, inicio, fin) + "'");
+        return (int) valor;
+    }
+
+    //Decimales simples (signo, digitos y un punto) de hasta 15 digitos se convierten directamente: el
+    //cociente de dos doubles exactos esta correctamente redondeado, igual que Double.parseDouble.
+    //Cualquier otra forma (exponentes, NaN, muchos digitos) se delega en Double.parseDouble.
+    static double decimal(char[] texto, int inicio, int fin) {
+        int i = inicio;
+        boolean negativo = false;
+        if (i < fin && (texto[i] == '-' || texto[i] == '+')) {
+            negativo = texto[i] == '-';
+            i++;
+        }
+        long mantisa = 0;
+        int digitos = 0;
+        int decimales = -1;
+        for (; i < fin; i++) {
+            char c = texto[i];
+            if (c >= '0' && c <= '9') {
+                mantisa = mantisa * 10 + (c - '0');
+                digitos++;
+                if (decimales >= 0) decimales++;
+            } else if (c == '.' && decimales < 0) {
+                decimales = 0;
+            } else {
+                break;
+            }
+        }
+        if (i == fin && digitos > 0 && digitos <= 15) {
+            double valor = (decimales > 0) ? mantisa / POTENCIAS_10[decimales] : mantisa;
+            return negativo ? -valor : valor;
+        }
+        try {
+            return Double.parseDouble(texto(texto, inicio, fin));
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("numero decimal invalido: '" + texto(texto, inicio, fin) + "'");
+        }
+    }
+
+    //Resultado de analizar un bloque
+    static class Bloque {
+        final List<Aeropuerto> aeropuertos = new ArrayList<>();
+        final List<RegistroVuelo> vuelos = new ArrayList<>();
+        final List<Integer> numerosLineasInvalidas = new ArrayList<>();
+        final List<String> lineasInvalidas = new ArrayList<>();
+        final List<String> motivos = new ArrayList<>();
+    }
+}
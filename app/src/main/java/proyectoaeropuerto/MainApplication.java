@@ -27,7 +27,7 @@ public class MainApplication extends Application {
     @Override
     public void stop() throws Exception {
         ViewController controller = fxmlLoader.getController();
-        controller.getSistemaDeVuelos().guardarEstado();
+        controller.getSistemaDeVuelos().cerrar();
         super.stop();
     }
 
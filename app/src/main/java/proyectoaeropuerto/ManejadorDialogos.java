@@ -60,6 +60,11 @@ public class ManejadorDialogos {
                     mostrarAlerta(Alert.AlertType.ERROR, "Error de validación", "Todos los campos son obligatorios.");
                     return null;
                 }
+                if (!SistemaDeVuelos.esCampoValido(codigo.getText()) || !SistemaDeVuelos.esCampoValido(nombre.getText())
+                        || !SistemaDeVuelos.esCampoValido(ciudad.getText())) {
+                    mostrarAlerta(Alert.AlertType.ERROR, "Error de validación", "Los campos no pueden contener comas.");
+                    return null;
+                }
                 if (sistema.getAeropuertoPorCodigo(codigo.getText().toUpperCase()) != null) {
                     mostrarAlerta(Alert.AlertType.ERROR, "Error de validación", "El código IATA ya existe.");
                     return null;
@@ -77,7 +82,7 @@ public class ManejadorDialogos {
     }
 
     public void mostrarDialogoEstadisticas() {
-        List<String> choices = Arrays.asList("Conexiones por Aeropuerto", "Rutas Más Demandadas");
+        List<String> choices = Arrays.asList("Conexiones por Aeropuerto", "Rutas Más Demandadas", "Rendimiento");
         ChoiceDialog<String> dialog = new ChoiceDialog<>("Conexiones por Aeropuerto", choices);
         dialog.setTitle("Seleccionar Estadísticas");
         dialog.setHeaderText("¿Qué estadísticas desea visualizar?");
@@ -89,13 +94,15 @@ public class ManejadorDialogos {
                 mostrarEstadisticasConexiones();
             } else if (choice.equals("Rutas Más Demandadas")) {
                 mostrarDialogoRutasDemandadas();
+            } else if (choice.equals("Rendimiento")) {
+                mostrarEstadisticasRendimiento();
             }
         });
     }
 
     private void mostrarEstadisticasConexiones() {
-        String masConectado = "Aeropuerto más conectado: " + sistema.getAeropuertoMasConectado().toString();
-        String menosConectado = "Aeropuerto menos conectado: " + sistema.getAeropuertoMenosConectado().toString();
+        String masConectado = "Aeropuerto más conectado (por vuelos salientes): " + sistema.getAeropuertoMasConectado().toString();
+        String menosConectado = "Aeropuerto menos conectado (por vuelos salientes): " + sistema.getAeropuertoMenosConectado().toString();
         String conexiones = "\nConexiones por Aeropuerto:\n" + sistema.getEstadisticasConexiones();
 
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -105,6 +112,14 @@ public class ManejadorDialogos {
         alert.showAndWait();
     }
 
+    private void mostrarEstadisticasRendimiento() {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Estadísticas de Rendimiento");
+        alert.setHeaderText("Cache de rutas y persistencia");
+        alert.setContentText(sistema.getEstadisticasRendimiento());
+        alert.showAndWait();
+    }
+
     private void mostrarDialogoRutasDemandadas() {
         List<Vuelo> vuelosPopulares = sistema.getVuelosMasDemandados(10);
 
@@ -119,7 +134,7 @@ public class ManejadorDialogos {
                 String.format("%s -> %s (Demanda: %d)",
                     vuelo.getOrigen().getCodigoIATA(),
                     vuelo.getDestino().getCodigoIATA(),
-                    vuelo.getPeso().getDemanda())
+                    vuelo.getDemanda())
             );
         }
         listView.setItems(FXCollections.observableArrayList(vuelosComoTexto));
@@ -198,9 +213,12 @@ public class ManejadorDialogos {
                     mostrarAlerta(Alert.AlertType.ERROR, "Error de validación", "Nombre y ciudad no pueden estar vacíos.");
                     return null;
                 }
-                aeropuerto.setNombre(nombre.getText());
-                aeropuerto.setCiudad(ciudad.getText());
-                return aeropuerto;
+                if (!SistemaDeVuelos.esCampoValido(nombre.getText()) || !SistemaDeVuelos.esCampoValido(ciudad.getText())) {
+                    mostrarAlerta(Alert.AlertType.ERROR, "Error de validación", "Nombre y ciudad no pueden contener comas.");
+                    return null;
+                }
+                // Se devuelve una copia: el cambio lo aplica SistemaDeVuelos.editarAeropuerto
+                return new Aeropuerto(aeropuerto.getCodigoIATA(), nombre.getText(), ciudad.getText());
             }
             return null;
         });
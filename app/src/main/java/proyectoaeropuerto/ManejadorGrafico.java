@@ -97,10 +97,10 @@ public class ManejadorGrafico {
         }
         if (pkx != null) aeropuertos.add(pkx);
 
-        for (Vuelo vuelo : sistema.getTodosLosVuelos()) {
+        sistema.getTodosLosVuelos().forEach(vuelo -> {
             Pair<Double, Double> posOrigen = posiciones.get(vuelo.getOrigen());
             Pair<Double, Double> posDestino = posiciones.get(vuelo.getDestino());
-            if (posOrigen == null || posDestino == null) continue;
+            if (posOrigen == null || posDestino == null) return;
 
             double x1 = posOrigen.getKey();
             double y1 = posOrigen.getValue();
@@ -129,7 +129,7 @@ public class ManejadorGrafico {
             textoPeso.setFill(Color.BLUE);
 
             graphContentGroup.getChildren().addAll(linea, flecha1, flecha2, textoPeso);
-        }
+        });
 
         for (Aeropuerto apt : aeropuertos) {
             Pair<Double, Double> pos = posiciones.get(apt);
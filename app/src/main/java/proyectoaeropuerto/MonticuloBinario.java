@@ -0,0 +1,69 @@
+package proyectoaeropuerto;
+
+import java.util.Arrays;
+
+//Monticulo binario minimo de pares (prioridad, indice) sobre arreglos primitivos.
+//No soporta decrease-key: se insertan duplicados y el consumidor descarta los ya visitados.
+class MonticuloBinario {
+    private double[] prioridades;
+    private int[] indices;
+    private int tamano;
+
+    MonticuloBinario(int capacidadInicial) {
+        int capacidad = Math.max(capacidadInicial, 16);
+        this.prioridades = new double[capacidad];
+        this.indices = new int[capacidad];
+    }
+
+    boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    void limpiar() {
+        tamano = 0;
+    }
+
+    void insertar(int indice, double prioridad) {
+        if (tamano == indices.length) {
+            prioridades = Arrays.copyOf(prioridades, tamano * 2);
+            indices = Arrays.copyOf(indices, tamano * 2);
+        }
+        int i = tamano++;
+        while (i > 0) {
+            int padre = (i - 1) >>> 1;
+            if (prioridades[padre] <= prioridad) break;
+            prioridades[i] = prioridades[padre];
+            indices[i] = indices[padre];
+            i = padre;
+        }
+        prioridades[i] = prioridad;
+        indices[i] = indice;
+    }
+
+    double prioridadMinima() {
+        return prioridades[0];
+    }
+
+    //Extrae el indice con menor prioridad
+    int extraerMinimo() {
+        int minimo = indices[0];
+        tamano--;
+        if (tamano > 0) {
+            double prioridad = prioridades[tamano];
+            int indice = indices[tamano];
+            int i = 0;
+            int mitad = tamano >>> 1;
+            while (i < mitad) {
+                int hijo = 2 * i + 1;
+                if (hijo + 1 < tamano && prioridades[hijo + 1] < prioridades[hijo]) hijo++;
+                if (prioridad <= prioridades[hijo]) break;
+                prioridades[i] = prioridades[hijo];
+                indices[i] = indices[hijo];
+                i = hijo;
+            }
+            prioridades[i] = prioridad;
+            indices[i] = indice;
+        }
+        return minimo;
+    }
+}
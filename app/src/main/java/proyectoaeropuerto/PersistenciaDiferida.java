@@ -0,0 +1,221 @@
+package proyectoaeropuerto;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+//Persistencia en segundo plano (write-behind): los cambios se encolan y un hilo los escribe en el
+//diario agrupando las rafagas en una sola escritura con fsync. Una escritura se hace cuando pasa
+//intervaloMs desde el primer cambio pendiente o cuando se acumulan umbralCambios, lo que ocurra antes.
+//Las compactaciones (snapshot completo) se escriben en el mismo hilo y en el mismo orden que los cambios.
+public class PersistenciaDiferida {
+    //Marca de cierre: el hilo termina despues de escribir lo que tenga delante
+    private static final Object CIERRE = new Object();
+
+    private final DiarioCambios diario;
+    private final File archivoSnapshot;
+    //Snapshots que se conservan (el actual y los anteriores rotados)
+    private final int copias;
+    private final long intervaloMs;
+    private final int umbralCambios;
+    //Registros (String), compactaciones (SnapshotBinario.Contenido) y marcas de espera (CountDownLatch)
+    private final LinkedBlockingQueue<Object> cola = new LinkedBlockingQueue<>();
+    private Thread escritor;
+
+    private volatile long ultimaLatenciaNanos;
+    private volatile long maximaLatenciaNanos;
+    private volatile long escrituras;
+    private volatile long registrosEscritos;
+    private volatile long snapshotsEscritos;
+    private volatile long errores;
+
+    PersistenciaDiferida(DiarioCambios diario, File archivoSnapshot, int copias, long intervaloMs, int umbralCambios) {
+        this.diario = diario;
+        this.archivoSnapshot = archivoSnapshot;
+        this.copias = copias;
+        this.intervaloMs = Math.max(0, intervaloMs);
+        this.umbralCambios = Math.max(1, umbralCambios);
+    }
+
+    //Encola un registro del diario; se escribe en la proxima rafaga
+    void registrar(String registro) {
+        encolar(registro);
+    }
+
+    //Encola un estado completo ya capturado; al escribirse reemplaza al snapshot y vacia el diario
+    void compactar(SnapshotBinario.Contenido contenido) {
+        encolar(contenido);
+    }
+
+    //Bloquea hasta que todo lo encolado antes de la llamada esta escrito y sincronizado
+    public void esperar() {
+        CountDownLatch escrito = new CountDownLatch(1);
+        encolar(escrito);
+        try {
+            escrito.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Escribe todo lo pendiente y detiene el hilo; si despues llegan mas cambios se vuelve a iniciar
+    public void cerrar() {
+        Thread hilo;
+        synchronized (this) {
+            hilo = escritor;
+            if (hilo == null) return;
+            escritor = null;
+            cola.add(CIERRE);
+        }
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        diario.cerrar();
+    }
+
+    private synchronized void encolar(Object elemento) {
+        if (escritor == null) {
+            escritor = new Thread(this::ejecutar, "persistencia-diferida");
+            escritor.setDaemon(true);
+            escritor.start();
+        }
+        cola.add(elemento);
+    }
+
+    private void ejecutar() {
+        List<Object> lote = new ArrayList<>();
+        while (true) {
+            try {
+                lote.add(cola.take());
+                if (lote.get(0) instanceof String) {
+                    // Esperar a que se junte la rafaga, salvo que llegue algo que no puede esperar
+                    long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                    int registros = 1;
+                    while (registros < umbralCambios) {
+                        Object siguiente = cola.poll(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (siguiente == null) break;
+                        lote.add(siguiente);
+                        if (!(siguiente instanceof String)) break;
+                        registros++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // No deberia ocurrir: el hilo solo termina con CIERRE
+            }
+            cola.drainTo(lote);
+            if (lote.isEmpty()) continue;
+            int cierre = lote.indexOf(CIERRE);
+            if (cierre >= 0) {
+                // Lo encolado despues del cierre se devuelve a la cola para el proximo hilo
+                for (int i = cierre + 1; i < lote.size(); i++) {
+                    cola.add(lote.get(i));
+                }
+                escribir(lote.subList(0, cierre));
+                return;
+            }
+            escribir(lote);
+            lote.clear();
+        }
+    }
+
+    //Escribe un lote. Solo hace falta la ultima compactacion; los registros anteriores a ella se
+    //agregan igualmente al diario actual, que se conserva rotado junto con el snapshot previo
+    private void escribir(List<Object> lote) {
+        long inicio = System.nanoTime();
+        int ultimaCompactacion = -1;
+        for (int i = 0; i < lote.size(); i++) {
+            if (lote.get(i) instanceof SnapshotBinario.Contenido) {
+                ultimaCompactacion = i;
+            }
+        }
+        int registros = agregarAlDiario(lote, 0, Math.max(ultimaCompactacion, 0));
+        if (ultimaCompactacion >= 0) {
+            SnapshotBinario.Contenido contenido = (SnapshotBinario.Contenido) lote.get(ultimaCompactacion);
+            contenido.generacion = diario.getGeneracion() + 1;
+            try {
+                SnapshotBinario.escribir(archivoSnapshot, contenido, copias);
+                snapshotsEscritos++;
+                // Solo con el estado ya escrito se empieza un diario nuevo
+                diario.rotar(contenido.generacion);
+            } catch (IOException | RuntimeException e) {
+                // El diario sigue siendo valido: los registros siguientes se agregan al mismo archivo
+                errores++;
+                System.err.println("Error al escribir el snapshot de la red:");
+                e.printStackTrace();
+            }
+        }
+        registros += agregarAlDiario(lote, ultimaCompactacion + 1, lote.size());
+        if (ultimaCompactacion >= 0 || registros > 0) {
+            long latencia = System.nanoTime() - inicio;
+            ultimaLatenciaNanos = latencia;
+            maximaLatenciaNanos = Math.max(maximaLatenciaNanos, latencia);
+            escrituras++;
+        }
+        for (Object elemento : lote) {
+            if (elemento instanceof CountDownLatch) {
+                ((CountDownLatch) elemento).countDown();
+            }
+        }
+    }
+
+    private int agregarAlDiario(List<Object> lote, int desde, int hasta) {
+        List<String> registros = new ArrayList<>();
+        for (int i = desde; i < hasta; i++) {
+            if (lote.get(i) instanceof String) {
+                registros.add((String) lote.get(i));
+            }
+        }
+        if (registros.isEmpty()) return 0;
+        try {
+            diario.registrar(registros);
+            registrosEscritos += registros.size();
+        } catch (IOException | RuntimeException e) {
+            errores++;
+            System.err.println("Error al escribir en el diario de cambios:");
+            e.printStackTrace();
+        }
+        return registros.size();
+    }
+
+    //Elementos encolados que todavia no se han escrito
+    public int getProfundidadCola() {
+        return cola.size();
+    }
+
+    //Duracion de la ultima escritura (diario y/o snapshot, incluido el fsync) en milisegundos
+    public double getUltimaLatenciaMs() {
+        return ultimaLatenciaNanos / 1e6;
+    }
+
+    public double getMaximaLatenciaMs() {
+        return maximaLatenciaNanos / 1e6;
+    }
+
+    public long getEscrituras() {
+        return escrituras;
+    }
+
+    public long getRegistrosEscritos() {
+        return registrosEscritos;
+    }
+
+    public long getSnapshotsEscritos() {
+        return snapshotsEscritos;
+    }
+
+    public long getErrores() {
+        return errores;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Persistencia: %d en cola, %d escrituras (%d registros, %d snapshots), latencia %.2f ms (max %.2f ms), %d errores",
+            getProfundidadCola(), escrituras, registrosEscritos, snapshotsEscritos, getUltimaLatenciaMs(), getMaximaLatenciaMs(), errores);
+    }
+}
@@ -6,20 +6,11 @@ public class PesoVuelo {
     final int distancia;
     final int tiempo;
     final double costo;
-    private int demanda;
 
     public PesoVuelo(int distancia, int tiempo, double costo) {
         this.distancia = distancia;
         this.tiempo = tiempo;
         this.costo = costo;
-        this.demanda = 0;
-    }
-
-    public PesoVuelo(int distancia, int tiempo, double costo, int demanda) {
-        this.distancia = distancia;
-        this.tiempo = tiempo;
-        this.costo = costo;
-        this.demanda = demanda;
     }
 
     public int getDistancia() {
@@ -34,14 +25,6 @@ public class PesoVuelo {
         return costo;
     }
 
-    public int getDemanda() {
-        return demanda;
-    }
-
-    public void incrementarDemanda() {
-        this.demanda++;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
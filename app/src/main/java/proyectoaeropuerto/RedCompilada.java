@@ -0,0 +1,534 @@
+package proyectoaeropuerto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+//Version "compilada" de solo lectura del grafo de vuelos en formato CSR (compressed sparse row).
+//Los vertices se identifican con enteros y las aristas de cada vertice ocupan un rango contiguo
+//de los arreglos destinos/distancias/tiempos/costos, delimitado por inicioAristas[v]..inicioAristas[v+1].
+//Tambien guarda el indice inverso (aristas entrantes de cada vertice) para las busquedas hacia atras.
+public class RedCompilada {
+    private final long version;
+    private final Aeropuerto[] aeropuertos;
+    private final Map<Aeropuerto, Integer> idsAeropuertos;
+    private final int[] inicioAristas;
+    private final int[] destinos;
+    //Id en el grafo de cada arista (para asociarle la demanda de las rutas encontradas)
+    private final int[] idsAristas;
+    private final int[] distancias;
+    private final int[] tiempos;
+    private final double[] costos;
+    private final int[] inicioEntrantes;
+    private final int[] aristasEntrantes;
+    private final int[] origenesEntrantes;
+    //Datos para la heuristica de A*: coordenadas de cada vertice y cotas derivadas de los vuelos
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final boolean todosConCoordenadas;
+    private final double factorDistancia;
+    private final double velocidadMaxima;
+
+    RedCompilada(Grafo<?, ?> grafo) {
+        this.version = grafo.getVersion();
+        int numeroVertices = grafo.getNodos().size();
+        this.aeropuertos = new Aeropuerto[numeroVertices];
+        this.idsAeropuertos = new HashMap<>(numeroVertices * 2);
+
+        // 1. Numerar los vertices y contar las aristas
+        int numeroAristas = 0;
+        int id = 0;
+        for (Grafo.Nodo<?, ?> nodo : grafo.getNodos()) {
+            aeropuertos[id] = (Aeropuerto) nodo.data;
+            idsAeropuertos.put(aeropuertos[id], id);
+            numeroAristas += nodo.adyacentes.size();
+            id++;
+        }
+
+        // 2. Copiar las aristas a los arreglos paralelos
+        this.inicioAristas = new int[numeroVertices + 1];
+        this.destinos = new int[numeroAristas];
+        this.idsAristas = new int[numeroAristas];
+        this.distancias = new int[numeroAristas];
+        this.tiempos = new int[numeroAristas];
+        this.costos = new double[numeroAristas];
+        int arista = 0;
+        id = 0;
+        for (Grafo.Nodo<?, ?> nodo : grafo.getNodos()) {
+            inicioAristas[id++] = arista;
+            for (Grafo.Arista<?, ?> a : nodo.adyacentes) {
+                PesoVuelo peso = (PesoVuelo) a.peso;
+                destinos[arista] = idsAeropuertos.get((Aeropuerto) a.destino.data);
+                idsAristas[arista] = a.id;
+                distancias[arista] = peso.getDistancia();
+                tiempos[arista] = peso.getTiempo();
+                costos[arista] = peso.getCosto();
+                arista++;
+            }
+        }
+        inicioAristas[numeroVertices] = arista;
+
+        // 3. Indice inverso por conteo: para cada vertice, las aristas (indices directos) que llegan a el
+        this.inicioEntrantes = new int[numeroVertices + 1];
+        this.aristasEntrantes = new int[numeroAristas];
+        this.origenesEntrantes = new int[numeroAristas];
+        for (int a = 0; a < numeroAristas; a++) {
+            inicioEntrantes[destinos[a] + 1]++;
+        }
+        for (int v = 0; v < numeroVertices; v++) {
+            inicioEntrantes[v + 1] += inicioEntrantes[v];
+        }
+        int[] siguiente = Arrays.copyOf(inicioEntrantes, numeroVertices);
+        for (int v = 0; v < numeroVertices; v++) {
+            for (int a = inicioAristas[v]; a < inicioAristas[v + 1]; a++) {
+                int posicion = siguiente[destinos[a]]++;
+                aristasEntrantes[posicion] = a;
+                origenesEntrantes[posicion] = v;
+            }
+        }
+
+        // 4. Coordenadas y cotas para A*. La distancia de gran circulo escalada por factorDistancia nunca
+        // supera la distancia de un vuelo, y ningun vuelo es mas rapido que velocidadMaxima (km/min), asi
+        // que ambas heuristicas son consistentes. Si falta alguna coordenada A* se comporta como Dijkstra.
+        this.latitudes = new double[numeroVertices];
+        this.longitudes = new double[numeroVertices];
+        boolean completas = true;
+        for (int v = 0; v < numeroVertices; v++) {
+            latitudes[v] = aeropuertos[v].getLatitud();
+            longitudes[v] = aeropuertos[v].getLongitud();
+            completas &= aeropuertos[v].tieneCoordenadas();
+        }
+        double factor = 1.0;
+        double velocidad = 0.0;
+        if (completas) {
+            for (int v = 0; v < numeroVertices; v++) {
+                for (int a = inicioAristas[v]; a < inicioAristas[v + 1]; a++) {
+                    double granCirculo = granCirculo(v, destinos[a]);
+                    if (granCirculo <= 0) continue;
+                    factor = Math.min(factor, distancias[a] / granCirculo);
+                    velocidad = Math.max(velocidad, (tiempos[a] > 0) ? granCirculo / tiempos[a] : Double.POSITIVE_INFINITY);
+                }
+            }
+        }
+        this.todosConCoordenadas = completas;
+        // Margen para que el redondeo no vuelva la heuristica inconsistente
+        this.factorDistancia = Math.max(0.0, factor) * (1 - 1e-9);
+        this.velocidadMaxima = velocidad * (1 + 1e-9);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getNumeroDeVertices() {
+        return aeropuertos.length;
+    }
+
+    public int getNumeroDeAristas() {
+        return destinos.length;
+    }
+
+    //Acceso por ids para los indices que se construyen sobre la red (p. ej. JerarquiaContraccion)
+    int getId(Aeropuerto aeropuerto) {
+        Integer id = (aeropuerto != null) ? idsAeropuertos.get(aeropuerto) : null;
+        return (id != null) ? id : -1;
+    }
+
+    int inicioAristas(int vertice) {
+        return inicioAristas[vertice];
+    }
+
+    int finAristas(int vertice) {
+        return inicioAristas[vertice + 1];
+    }
+
+    int destinoDe(int arista) {
+        return destinos[arista];
+    }
+
+    //Ruta que parte de origen y recorre las aristas dadas (indices de esta red), en orden
+    Ruta construirRuta(int origen, int[] aristas, Ruta.Criterio criterio) {
+        int[] vertices = new int[aristas.length + 1];
+        double[] acumulado = new double[aristas.length + 1];
+        vertices[0] = origen;
+        for (int i = 0; i < aristas.length; i++) {
+            vertices[i + 1] = destinos[aristas[i]];
+            acumulado[i + 1] = acumulado[i] + peso(aristas[i], criterio);
+        }
+        return new Camino(vertices, aristas, acumulado).aRuta(aeropuertos, idsAristas, criterio);
+    }
+
+    public Ruta encontrarRutaMasCorta(Aeropuerto origen, Aeropuerto destino, Ruta.Criterio criterio) {
+        return encontrarRutaMasCorta(origen, destino, criterio, Ruta.Algoritmo.DIJKSTRA);
+    }
+
+    public Ruta encontrarRutaMasCorta(Aeropuerto origen, Aeropuerto destino, Ruta.Criterio criterio, Ruta.Algoritmo algoritmo) {
+        Integer idOrigen = (origen != null) ? idsAeropuertos.get(origen) : null;
+        Integer idDestino = (destino != null) ? idsAeropuertos.get(destino) : null;
+        if (idOrigen == null || idDestino == null) {
+            return new Ruta(new LinkedList<>(), -1, criterio); // Devuelve ruta vacía si no existen los nodos
+        }
+
+        // El estado de la busqueda vive en un contexto por hilo, la red no se modifica
+        ContextoBusqueda contexto = ContextoBusqueda.obtener(aeropuertos.length);
+        try {
+            Camino camino;
+            switch (algoritmo) {
+                case BIDIRECCIONAL: camino = buscarCaminoBidireccional(contexto, idOrigen, idDestino, criterio); break;
+                case A_ESTRELLA: camino = buscarCaminoAEstrella(contexto, idOrigen, idDestino, criterio); break;
+                // JERARQUIAS requiere un indice precalculado (JerarquiaContraccion); sin el se usa Dijkstra
+                default: camino = buscarCamino(contexto, idOrigen, idDestino, criterio); break;
+            }
+            if (camino == null) {
+                return new Ruta(new LinkedList<>(), Double.POSITIVE_INFINITY, criterio);
+            }
+            return camino.aRuta(aeropuertos, idsAristas, criterio);
+        } finally {
+            contexto.liberar();
+        }
+    }
+
+    //Algoritmo de Yen: las k rutas sin ciclos de menor peso, en orden creciente.
+    //Cada ruta nueva se obtiene desviandose de la anterior en uno de sus vertices (una busqueda
+    //de Dijkstra por vertice), por lo que el costo es O(k·V·(E + V log V)) en el peor caso.
+    public List<Ruta> encontrarRutasAlternativas(Aeropuerto origen, Aeropuerto destino, Ruta.Criterio criterio, int maxRutas) {
+        List<Ruta> rutasEncontradas = new ArrayList<>();
+        Integer idOrigen = (origen != null) ? idsAeropuertos.get(origen) : null;
+        Integer idDestino = (destino != null) ? idsAeropuertos.get(destino) : null;
+        if (idOrigen == null || idDestino == null || maxRutas <= 0) {
+            return rutasEncontradas;
+        }
+
+        ContextoBusqueda contexto = ContextoBusqueda.obtener(aeropuertos.length);
+        try {
+            Camino primero = buscarCamino(contexto, idOrigen, idDestino, criterio);
+            if (primero == null) {
+                return rutasEncontradas;
+            }
+            List<Camino> caminos = new ArrayList<>();
+            caminos.add(primero);
+            PriorityQueue<Camino> candidatos = new PriorityQueue<>(Comparator.comparingDouble((Camino c) -> c.peso));
+            Set<Camino> vistos = new HashSet<>();
+            vistos.add(primero);
+
+            while (caminos.size() < maxRutas) {
+                Camino anterior = caminos.get(caminos.size() - 1);
+                for (int i = 0; i < anterior.vertices.length - 1; i++) {
+                    contexto.reiniciar();
+                    // No repetir el siguiente tramo de las rutas que ya comparten esta raiz
+                    for (Camino camino : caminos) {
+                        if (camino.compartePrefijo(anterior, i)) {
+                            contexto.prohibirDestino(camino.vertices[i + 1]);
+                        }
+                    }
+                    // Los vertices de la raiz no pueden volver a visitarse (rutas sin ciclos)
+                    for (int j = 0; j < i; j++) {
+                        contexto.bloquear(anterior.vertices[j]);
+                    }
+                    Camino desvio = buscarCamino(contexto, anterior.vertices[i], idDestino, criterio);
+                    if (desvio != null) {
+                        Camino candidato = anterior.unirEn(i, desvio);
+                        if (vistos.add(candidato)) {
+                            candidatos.add(candidato);
+                        }
+                    }
+                }
+                if (candidatos.isEmpty()) break;
+                caminos.add(candidatos.poll());
+            }
+
+            for (Camino camino : caminos) {
+                rutasEncontradas.add(camino.aRuta(aeropuertos, idsAristas, criterio));
+            }
+            return rutasEncontradas;
+        } finally {
+            contexto.liberar();
+        }
+    }
+
+    //Dijkstra desde origen hasta objetivo respetando los bloqueos del contexto (que ya debe estar preparado)
+    private Camino buscarCamino(ContextoBusqueda contexto, int origen, int objetivo, Ruta.Criterio criterio) {
+        MonticuloBinario cola = contexto.cola;
+        contexto.actualizar(origen, 0, -1);
+        cola.insertar(origen, 0);
+
+        while (!cola.estaVacio()) {
+            int actual = cola.extraerMinimo();
+            if (contexto.esVisitado(actual)) continue;
+            contexto.marcarVisitado(actual);
+            if (actual == objetivo) break;
+
+            double base = contexto.getPesoAcumulado(actual);
+            for (int a = inicioAristas[actual], fin = inicioAristas[actual + 1]; a < fin; a++) {
+                int vecino = destinos[a];
+                if (contexto.esVisitado(vecino) || contexto.estaBloqueado(vecino)) continue;
+                if (actual == origen && contexto.esDestinoProhibido(vecino)) continue;
+                double nuevoPeso = base + peso(a, criterio);
+                if (nuevoPeso < contexto.getPesoAcumulado(vecino)) {
+                    contexto.actualizar(vecino, nuevoPeso, a);
+                    cola.insertar(vecino, nuevoPeso);
+                }
+            }
+        }
+
+        return construirCamino(contexto, origen, objetivo);
+    }
+
+    //A*: como Dijkstra, pero la cola se ordena por peso acumulado + cota inferior del peso restante
+    //hasta el destino, calculada con la distancia de gran circulo entre aeropuertos
+    private Camino buscarCaminoAEstrella(ContextoBusqueda contexto, int origen, int objetivo, Ruta.Criterio criterio) {
+        double escala = escalaHeuristica(criterio);
+        if (escala == 0) {
+            return buscarCamino(contexto, origen, objetivo, criterio);
+        }
+        MonticuloBinario cola = contexto.cola;
+        contexto.actualizar(origen, 0, -1);
+        cola.insertar(origen, escala * granCirculo(origen, objetivo));
+
+        while (!cola.estaVacio()) {
+            int actual = cola.extraerMinimo();
+            if (contexto.esVisitado(actual)) continue;
+            contexto.marcarVisitado(actual);
+            if (actual == objetivo) break;
+
+            double base = contexto.getPesoAcumulado(actual);
+            for (int a = inicioAristas[actual], fin = inicioAristas[actual + 1]; a < fin; a++) {
+                int vecino = destinos[a];
+                if (contexto.esVisitado(vecino)) continue;
+                double nuevoPeso = base + peso(a, criterio);
+                if (nuevoPeso < contexto.getPesoAcumulado(vecino)) {
+                    contexto.actualizar(vecino, nuevoPeso, a);
+                    cola.insertar(vecino, nuevoPeso + escala * granCirculo(vecino, objetivo));
+                }
+            }
+        }
+        return construirCamino(contexto, origen, objetivo);
+    }
+
+    //Factor que convierte kilometros de gran circulo en una cota inferior del criterio (0 = sin heuristica)
+    private double escalaHeuristica(Ruta.Criterio criterio) {
+        if (!todosConCoordenadas) return 0;
+        switch (criterio) {
+            case DISTANCIA: return factorDistancia;
+            case TIEMPO: return (velocidadMaxima > 0 && velocidadMaxima != Double.POSITIVE_INFINITY) ? 1 / velocidadMaxima : 0;
+            default: return 0;
+        }
+    }
+
+    private double granCirculo(int v, int w) {
+        return Aeropuerto.distanciaGranCirculo(latitudes[v], longitudes[v], latitudes[w], longitudes[w]);
+    }
+
+    //Reconstruye el camino desde el destino hacia atras siguiendo la arista predecesora
+    private Camino construirCamino(ContextoBusqueda contexto, int origen, int objetivo) {
+        double pesoTotal = contexto.getPesoAcumulado(objetivo);
+        if (pesoTotal == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        int tramos = 0;
+        for (int paso = objetivo; paso != origen; paso = origenDe(contexto.getPredecesor(paso))) {
+            tramos++;
+        }
+        int[] vertices = new int[tramos + 1];
+        int[] aristas = new int[tramos];
+        double[] acumulado = new double[tramos + 1];
+        int paso = objetivo;
+        for (int i = tramos; i > 0; i--) {
+            vertices[i] = paso;
+            acumulado[i] = contexto.getPesoAcumulado(paso);
+            aristas[i - 1] = contexto.getPredecesor(paso);
+            paso = origenDe(aristas[i - 1]);
+        }
+        vertices[0] = origen;
+        return new Camino(vertices, aristas, acumulado);
+    }
+
+    //Dijkstra bidireccional: una busqueda hacia adelante desde el origen y otra hacia atras desde el
+    //destino sobre el indice inverso, expandiendo siempre el lado con menor peso pendiente. Se detiene
+    //cuando la suma de los minimos de ambas colas ya no puede mejorar la mejor ruta encontrada.
+    private Camino buscarCaminoBidireccional(ContextoBusqueda adelante, int origen, int objetivo, Ruta.Criterio criterio) {
+        if (origen == objetivo) {
+            return new Camino(new int[]{origen}, new int[0], new double[]{0});
+        }
+        ContextoBusqueda atras = adelante.inverso();
+        MonticuloBinario colaAdelante = adelante.cola;
+        MonticuloBinario colaAtras = atras.cola;
+        adelante.actualizar(origen, 0, -1);
+        colaAdelante.insertar(origen, 0);
+        atras.actualizar(objetivo, 0, -1);
+        colaAtras.insertar(objetivo, 0);
+
+        double mejorPeso = Double.POSITIVE_INFINITY;
+        int aristaDeEncuentro = -1;
+        while (!colaAdelante.estaVacio() && !colaAtras.estaVacio()) {
+            if (colaAdelante.prioridadMinima() + colaAtras.prioridadMinima() >= mejorPeso) break;
+
+            if (colaAdelante.prioridadMinima() <= colaAtras.prioridadMinima()) {
+                int actual = colaAdelante.extraerMinimo();
+                if (adelante.esVisitado(actual)) continue;
+                adelante.marcarVisitado(actual);
+                double base = adelante.getPesoAcumulado(actual);
+                for (int a = inicioAristas[actual], fin = inicioAristas[actual + 1]; a < fin; a++) {
+                    int vecino = destinos[a];
+                    if (adelante.esVisitado(vecino)) continue;
+                    double nuevoPeso = base + peso(a, criterio);
+                    if (nuevoPeso < adelante.getPesoAcumulado(vecino)) {
+                        adelante.actualizar(vecino, nuevoPeso, a);
+                        colaAdelante.insertar(vecino, nuevoPeso);
+                    }
+                    double pesoPorAqui = nuevoPeso + atras.getPesoAcumulado(vecino);
+                    if (pesoPorAqui < mejorPeso) {
+                        mejorPeso = pesoPorAqui;
+                        aristaDeEncuentro = a;
+                    }
+                }
+            } else {
+                int actual = colaAtras.extraerMinimo();
+                if (atras.esVisitado(actual)) continue;
+                atras.marcarVisitado(actual);
+                double base = atras.getPesoAcumulado(actual);
+                for (int i = inicioEntrantes[actual], fin = inicioEntrantes[actual + 1]; i < fin; i++) {
+                    int a = aristasEntrantes[i];
+                    int vecino = origenesEntrantes[i];
+                    if (atras.esVisitado(vecino)) continue;
+                    double nuevoPeso = base + peso(a, criterio);
+                    if (nuevoPeso < atras.getPesoAcumulado(vecino)) {
+                        atras.actualizar(vecino, nuevoPeso, a);
+                        colaAtras.insertar(vecino, nuevoPeso);
+                    }
+                    double pesoPorAqui = nuevoPeso + adelante.getPesoAcumulado(vecino);
+                    if (pesoPorAqui < mejorPeso) {
+                        mejorPeso = pesoPorAqui;
+                        aristaDeEncuentro = a;
+                    }
+                }
+            }
+        }
+        if (aristaDeEncuentro == -1) {
+            return null;
+        }
+
+        // Unir la mitad hacia adelante (hasta el origen de la arista de encuentro) con la mitad hacia atras
+        int[] aristasIda = aristasHacia(adelante, origen, origenDe(aristaDeEncuentro));
+        int tramos = aristasIda.length + 1;
+        for (int paso = destinos[aristaDeEncuentro]; paso != objetivo; paso = destinos[atras.getPredecesor(paso)]) {
+            tramos++;
+        }
+        int[] vertices = new int[tramos + 1];
+        int[] aristas = Arrays.copyOf(aristasIda, tramos);
+        double[] acumulado = new double[tramos + 1];
+        vertices[0] = origen;
+        int i = aristasIda.length;
+        aristas[i] = aristaDeEncuentro;
+        for (int paso = destinos[aristaDeEncuentro]; paso != objetivo; paso = destinos[aristas[i]]) {
+            aristas[++i] = atras.getPredecesor(paso);
+        }
+        for (int j = 0; j < tramos; j++) {
+            vertices[j + 1] = destinos[aristas[j]];
+            acumulado[j + 1] = acumulado[j] + peso(aristas[j], criterio);
+        }
+        return new Camino(vertices, aristas, acumulado);
+    }
+
+    //Aristas del camino desde origen hasta vertice segun los predecesores del contexto
+    private int[] aristasHacia(ContextoBusqueda contexto, int origen, int vertice) {
+        int tramos = 0;
+        for (int paso = vertice; paso != origen; paso = origenDe(contexto.getPredecesor(paso))) {
+            tramos++;
+        }
+        int[] aristas = new int[tramos];
+        for (int paso = vertice; paso != origen; paso = origenDe(aristas[tramos])) {
+            aristas[--tramos] = contexto.getPredecesor(paso);
+        }
+        return aristas;
+    }
+
+    //Vertice del que sale la arista (busqueda binaria sobre los rangos CSR)
+    private int origenDe(int arista) {
+        int bajo = 0;
+        int alto = aeropuertos.length - 1;
+        while (bajo < alto) {
+            int medio = (bajo + alto + 1) >>> 1;
+            if (inicioAristas[medio] <= arista) bajo = medio;
+            else alto = medio - 1;
+        }
+        return bajo;
+    }
+
+    double peso(int arista, Ruta.Criterio criterio) {
+        switch (criterio) {
+            case TIEMPO: return tiempos[arista];
+            case COSTO: return costos[arista];
+            default: return distancias[arista];
+        }
+    }
+
+    //Ruta en ids de la red: vertices visitados, aristas usadas y peso acumulado en cada vertice
+    private static class Camino {
+        final int[] vertices;
+        final int[] aristas;
+        final double[] acumulado;
+        final double peso;
+
+        Camino(int[] vertices, int[] aristas, double[] acumulado) {
+            this.vertices = vertices;
+            this.aristas = aristas;
+            this.acumulado = acumulado;
+            this.peso = acumulado[acumulado.length - 1];
+        }
+
+        //Indica si este camino comienza con los vertices 0..i de otro y continua despues de ellos
+        boolean compartePrefijo(Camino otro, int i) {
+            if (vertices.length <= i + 1) return false;
+            for (int j = 0; j <= i; j++) {
+                if (vertices[j] != otro.vertices[j]) return false;
+            }
+            return true;
+        }
+
+        //Camino formado por los vertices 0..i de este y el desvio que parte del vertice i
+        Camino unirEn(int i, Camino desvio) {
+            int largo = i + desvio.vertices.length;
+            int[] nuevosVertices = Arrays.copyOf(vertices, largo);
+            int[] nuevasAristas = Arrays.copyOf(aristas, largo - 1);
+            double[] nuevoAcumulado = Arrays.copyOf(acumulado, largo);
+            for (int j = 1; j < desvio.vertices.length; j++) {
+                nuevosVertices[i + j] = desvio.vertices[j];
+                nuevasAristas[i + j - 1] = desvio.aristas[j - 1];
+                nuevoAcumulado[i + j] = acumulado[i] + desvio.acumulado[j];
+            }
+            return new Camino(nuevosVertices, nuevasAristas, nuevoAcumulado);
+        }
+
+        Ruta aRuta(Aeropuerto[] aeropuertos, int[] idsAristas, Ruta.Criterio criterio) {
+            LinkedList<Aeropuerto> aeropuertosEnRuta = new LinkedList<>();
+            for (int vertice : vertices) {
+                aeropuertosEnRuta.add(aeropuertos[vertice]);
+            }
+            int[] idsVuelos = new int[aristas.length];
+            for (int i = 0; i < aristas.length; i++) {
+                idsVuelos[i] = idsAristas[aristas[i]];
+            }
+            return new Ruta(aeropuertosEnRuta, idsVuelos, peso, criterio);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(vertices, ((Camino) o).vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(vertices);
+        }
+    }
+}
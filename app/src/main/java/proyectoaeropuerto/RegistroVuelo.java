@@ -0,0 +1,55 @@
+package proyectoaeropuerto;
+
+//Datos de un vuelo identificado por los codigos IATA de sus aeropuertos, para cargas por lote
+public class RegistroVuelo {
+    private final String codigoOrigen;
+    private final String codigoDestino;
+    private final int distancia;
+    private final int tiempo;
+    private final double costo;
+    private final int demanda;
+    //Id con el que se guardo el vuelo (-1 si el archivo no lo trae)
+    private final int id;
+
+    public RegistroVuelo(String codigoOrigen, String codigoDestino, int distancia, int tiempo, double costo, int demanda) {
+        this(codigoOrigen, codigoDestino, distancia, tiempo, costo, demanda, -1);
+    }
+
+    public RegistroVuelo(String codigoOrigen, String codigoDestino, int distancia, int tiempo, double costo, int demanda, int id) {
+        this.codigoOrigen = codigoOrigen;
+        this.codigoDestino = codigoDestino;
+        this.distancia = distancia;
+        this.tiempo = tiempo;
+        this.costo = costo;
+        this.demanda = demanda;
+        this.id = id;
+    }
+
+    public String getCodigoOrigen() {
+        return codigoOrigen;
+    }
+
+    public String getCodigoDestino() {
+        return codigoDestino;
+    }
+
+    public int getDistancia() {
+        return distancia;
+    }
+
+    public int getTiempo() {
+        return tiempo;
+    }
+
+    public double getCosto() {
+        return costo;
+    }
+
+    public int getDemanda() {
+        return demanda;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -5,12 +5,20 @@ import java.util.Locale;
 
 public class Ruta {
     private LinkedList<Aeropuerto> aeropuertos;
+    //Ids (en el grafo) de los vuelos de cada tramo
+    private int[] idsVuelos;
     private double pesoTotal;
     private Criterio criterio;
     public enum Criterio { DISTANCIA, TIEMPO, COSTO }
+    public enum Algoritmo { DIJKSTRA, BIDIRECCIONAL, A_ESTRELLA, JERARQUIAS }
 
     public Ruta(LinkedList<Aeropuerto> aeropuertos, double pesoTotal, Criterio criterio) {
+        this(aeropuertos, new int[0], pesoTotal, criterio);
+    }
+
+    Ruta(LinkedList<Aeropuerto> aeropuertos, int[] idsVuelos, double pesoTotal, Criterio criterio) {
         this.aeropuertos = aeropuertos;
+        this.idsVuelos = idsVuelos;
         this.pesoTotal = pesoTotal;
         this.criterio = criterio;
     }
@@ -18,6 +26,10 @@ public class Ruta {
         return aeropuertos;
     }
 
+    int[] getIdsVuelos() {
+        return idsVuelos;
+    }
+
     public double getPesoTotal() {
         return pesoTotal;
     }
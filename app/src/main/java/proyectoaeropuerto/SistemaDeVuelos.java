@@ -1,178 +1,596 @@
 package proyectoaeropuerto;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 
 public class SistemaDeVuelos {
     private Grafo<Aeropuerto, PesoVuelo> redDeVuelos;
     private ArbolAVL<Aeropuerto> arbolAeropuertos;
-    private static final String ARCHIVO_PERSISTENCIA = "app/datos_adicionales.csv";
+    //Indice secundario por ciudad (sin distinguir mayusculas, luego por codigo) para filtrar mientras se escribe
+    private final ArbolAVL<EntradaCiudad> indiceCiudades = new ArbolAVL<>(Comparator.<EntradaCiudad>naturalOrder());
+    private final IndiceJerarquias indiceJerarquias = new IndiceJerarquias();
+    private final CacheRutas cacheRutas = new CacheRutas(CAPACIDAD_CACHE_RUTAS);
+    private final DiarioCambios diario;
+    private final PersistenciaDiferida persistencia;
+    //Protege la red de vuelos y los cambios del directorio: las escrituras son exclusivas y las consultas leen
+    //de forma optimista, sin bloquear; solo si un escritor intervino mientras leian se repiten con el cerrojo
+    //de lectura. Los aeropuertos se buscan sin cerrojo (cada version del arbol es inmutable, ver ArbolAVL)
+    private final StampedLock cerrojo = new StampedLock();
+    //Hilo con el cerrojo de escritura, para que una escritura pueda llamar a otras (p. ej. al reaplicar el
+    //diario). Solo lo cambia ese mismo hilo, asi que ningun otro lo puede confundir consigo mismo
+    private Thread escritor;
+    //La demanda se suma y se registra con el cerrojo de lectura. Cada suma y su registro se hacen con este
+    //cerrojo en lectura; la compactacion que dispara la demanda lo toma en escritura, para que ninguna suma quede
+    //entre la captura del estado y el corte del diario sin frenar al resto de las consultas
+    private final ReentrantReadWriteLock cerrojoDemanda = new ReentrantReadWriteLock();
+    //Registros en el diario (escritos o en cola) desde la ultima compactacion; la demanda se registra en paralelo
+    private final AtomicInteger registrosDiario = new AtomicInteger();
+    //El ultimo snapshot (escrito o en cola) coincide con el estado actual
+    private volatile boolean estadoCompactado;
+    //Mientras se cargan datos o se reaplica el diario no se registran cambios
+    private boolean cargando;
+    //Estado en formato binario; el CSV solo se lee si todavia no existe el binario
+    private final File archivoSnapshot;
+    private final File archivoPersistencia;
+    //Directorio de los archivos de datos, relativo al directorio de trabajo
+    private static final String DIRECTORIO_DATOS = "app";
+    private static final String ARCHIVO_SNAPSHOT = "datos_adicionales.bin";
+    private static final String ARCHIVO_PERSISTENCIA = "datos_adicionales.csv";
+    private static final String ARCHIVO_DIARIO = "datos_adicionales.diario";
+    //Registros del diario a partir de los cuales se compacta en ARCHIVO_SNAPSHOT
+    private static final int MAXIMO_REGISTROS_DIARIO = 1000;
+    //Snapshots conservados (con sus diarios) para recuperarse si el ultimo esta dañado
+    private static final int COPIAS_SNAPSHOT = 3;
+    //Los cambios se escriben en rafagas: como maximo este tiempo despues del primero, o al juntar UMBRAL_PERSISTENCIA
+    private static final long INTERVALO_PERSISTENCIA_MS = 500;
+    private static final int UMBRAL_PERSISTENCIA = 256;
+    private static final int CAPACIDAD_CACHE_RUTAS = 1024;
+
+    //Entrada del indice por ciudad. Guarda la ciudad con la que se indexo, de modo que el orden del indice
+    //(que los lectores pueden estar recorriendo) no cambia aunque se edite el aeropuerto
+    private static final class EntradaCiudad implements Comparable<EntradaCiudad> {
+        final String ciudad;
+        final Aeropuerto aeropuerto;
+
+        EntradaCiudad(Aeropuerto aeropuerto) {
+            this.ciudad = aeropuerto.getCiudad();
+            this.aeropuerto = aeropuerto;
+        }
+
+        String getCiudad() {
+            return ciudad;
+        }
+
+        @Override
+        public int compareTo(EntradaCiudad otra) {
+            int cmp = String.CASE_INSENSITIVE_ORDER.compare(ciudad, otra.ciudad);
+            return (cmp != 0) ? cmp : aeropuerto.getCodigoIATA().compareTo(otra.aeropuerto.getCodigoIATA());
+        }
+    }
 
     public SistemaDeVuelos() {
+        this(INTERVALO_PERSISTENCIA_MS, UMBRAL_PERSISTENCIA);
+    }
+
+    public SistemaDeVuelos(long intervaloPersistenciaMs, int umbralPersistencia) {
+        this(new File(DIRECTORIO_DATOS), intervaloPersistenciaMs, umbralPersistencia);
+    }
+
+    //Con los archivos de datos en otro directorio (los tests usan uno temporal)
+    SistemaDeVuelos(File directorio, long intervaloPersistenciaMs, int umbralPersistencia) {
+        this.archivoSnapshot = new File(directorio, ARCHIVO_SNAPSHOT);
+        this.archivoPersistencia = new File(directorio, ARCHIVO_PERSISTENCIA);
+        this.diario = new DiarioCambios(new File(directorio, ARCHIVO_DIARIO).getPath(), COPIAS_SNAPSHOT);
+        this.persistencia = new PersistenciaDiferida(diario, archivoSnapshot, COPIAS_SNAPSHOT, intervaloPersistenciaMs, umbralPersistencia);
         this.arbolAeropuertos = new ArbolAVL<>(Comparator.comparing(Aeropuerto::getCodigoIATA));
-        this.redDeVuelos = new Grafo<>(Comparator.comparingDouble(Grafo.Nodo::getPesoAcumulado));
+        this.redDeVuelos = new Grafo<>(Comparator.comparing(Aeropuerto::getCodigoIATA));
     }
     
     // --- MÉTODOS DE MANIPULACIÓN DE DATOS ---
     public void agregarAeropuerto(String codigoIATA, String nombre, String ciudad) {
-        Aeropuerto dummyAeropuerto = new Aeropuerto(codigoIATA, "", "");
-        if (arbolAeropuertos.buscar(dummyAeropuerto) == null) {
-            Aeropuerto nuevoAeropuerto = new Aeropuerto(codigoIATA, nombre, ciudad);
-            arbolAeropuertos.insertar(nuevoAeropuerto);
-            redDeVuelos.agregarVertice(nuevoAeropuerto);
-            guardarEstado();
+        agregarAeropuerto(codigoIATA, nombre, ciudad, Double.NaN, Double.NaN);
+    }
+
+    public void agregarAeropuerto(String codigoIATA, String nombre, String ciudad, double latitud, double longitud) {
+        validarCampos(codigoIATA, nombre, ciudad);
+        long sello = bloquearEscritura();
+        try {
+            if (getAeropuertoPorCodigo(codigoIATA) == null) {
+                Aeropuerto nuevoAeropuerto = new Aeropuerto(codigoIATA, nombre, ciudad, latitud, longitud);
+                arbolAeropuertos.insertar(nuevoAeropuerto);
+                indiceCiudades.insertar(new EntradaCiudad(nuevoAeropuerto));
+                redDeVuelos.agregarVertice(nuevoAeropuerto);
+                registrarCambio("+AEROPUERTO," + formatoAeropuerto(nuevoAeropuerto));
+            }
+        } finally {
+            desbloquearEscritura(sello);
         }
     }
 
     public void agregarVuelo(String codigoOrigen, String codigoDestino, int distancia, int tiempo, double costo, int demanda) {
-        Aeropuerto origen = arbolAeropuertos.buscar(new Aeropuerto(codigoOrigen, "", ""));
-        Aeropuerto destino = arbolAeropuertos.buscar(new Aeropuerto(codigoDestino, "", ""));
-        if (origen != null && destino != null) {
-            redDeVuelos.agregarArista(origen, destino, new PesoVuelo(distancia, tiempo, costo, demanda));
-            guardarEstado();
+        agregarVuelo(-1, codigoOrigen, codigoDestino, distancia, tiempo, costo, demanda);
+    }
+
+    //idPreferido es el id registrado en el diario (-1 para uno nuevo)
+    private void agregarVuelo(int idPreferido, String codigoOrigen, String codigoDestino, int distancia, int tiempo, double costo, int demanda) {
+        long sello = bloquearEscritura();
+        try {
+            Aeropuerto origen = getAeropuertoPorCodigo(codigoOrigen);
+            Aeropuerto destino = getAeropuertoPorCodigo(codigoDestino);
+            if (origen != null && destino != null) {
+                int id = redDeVuelos.agregarArista(idPreferido, origen, destino, new PesoVuelo(distancia, tiempo, costo), demanda);
+                registrarCambio("+VUELO," + formatoVuelo(codigoOrigen, codigoDestino, distancia, tiempo, costo) + "," + demanda + "," + id);
+            }
+        } finally {
+            desbloquearEscritura(sello);
         }
     }
 
     public void eliminarAeropuerto(Aeropuerto aeropuerto) {
         if (aeropuerto == null) return;
-        arbolAeropuertos.eliminar(aeropuerto);
-        redDeVuelos.eliminarVertice(aeropuerto);
-        guardarEstado();
+        long sello = bloquearEscritura();
+        try {
+            Aeropuerto guardado = getAeropuertoPorCodigo(aeropuerto.getCodigoIATA());
+            // Como en eliminarVuelo, solo se registra lo que realmente se quito
+            if (guardado == null) return;
+            indiceCiudades.eliminar(new EntradaCiudad(guardado));
+            arbolAeropuertos.eliminar(aeropuerto);
+            redDeVuelos.eliminarVertice(aeropuerto);
+            registrarCambio("-AEROPUERTO," + aeropuerto.getCodigoIATA());
+        } finally {
+            desbloquearEscritura(sello);
+        }
     }
 
+    //Un vuelo obtenido del sistema se elimina por su id; uno creado aparte (sin id), junto con todos los iguales
     public void eliminarVuelo(Vuelo vuelo) {
         if (vuelo == null) return;
-        PesoVuelo peso = new PesoVuelo(vuelo.getDistancia(), vuelo.getTiempo(), vuelo.getCosto(), vuelo.getPeso().getDemanda());
-        redDeVuelos.eliminarArista(vuelo.getOrigen(), vuelo.getDestino(), peso);
-        guardarEstado();
+        String registro = "-VUELO," + formatoVuelo(vuelo.getOrigen().getCodigoIATA(), vuelo.getDestino().getCodigoIATA(),
+            vuelo.getDistancia(), vuelo.getTiempo(), vuelo.getCosto());
+        long sello = bloquearEscritura();
+        try {
+            if (vuelo.getId() >= 0) {
+                if (redDeVuelos.eliminarArista(vuelo.getId())) {
+                    registrarCambio(registro + "," + vuelo.getId());
+                }
+            } else {
+                redDeVuelos.eliminarArista(vuelo.getOrigen(), vuelo.getDestino(), vuelo.getPeso());
+                registrarCambio(registro);
+            }
+        } finally {
+            desbloquearEscritura(sello);
+        }
     }
 
     public void editarAeropuerto(String codigoIATA, String nuevoNombre, String nuevaCiudad) {
-        Aeropuerto aeropuerto = getAeropuertoPorCodigo(codigoIATA);
-        if (aeropuerto != null) {
-            aeropuerto.setNombre(nuevoNombre);
-            aeropuerto.setCiudad(nuevaCiudad);
-            guardarEstado();
+        validarCampos(nuevoNombre, nuevaCiudad);
+        long sello = bloquearEscritura();
+        try {
+            Aeropuerto aeropuerto = getAeropuertoPorCodigo(codigoIATA);
+            if (aeropuerto != null) {
+                // Nombre y ciudad se publican juntos; la entrada del indice por ciudad se cambia en una sola escritura
+                EntradaCiudad anterior = new EntradaCiudad(aeropuerto);
+                aeropuerto.setNombreYCiudad(nuevoNombre, nuevaCiudad);
+                indiceCiudades.reemplazar(anterior, new EntradaCiudad(aeropuerto));
+                registrarCambio("~AEROPUERTO," + codigoIATA + "," + nuevoNombre + "," + nuevaCiudad);
+            }
+        } finally {
+            desbloquearEscritura(sello);
         }
     }
 
+    //Cambia los pesos del vuelo en su lugar: conserva su id y su demanda
     public void editarVuelo(Vuelo vueloAntiguo, int nuevaDistancia, int nuevoTiempo, double nuevoCosto) {
         if (vueloAntiguo == null) return;
+        long sello = bloquearEscritura();
+        try {
+            // Un vuelo sin id (creado fuera del sistema) se busca entre las salidas de su origen
+            int id = vueloAntiguo.getId();
+            if (id < 0) {
+                Vuelo existente = buscarVuelo(vueloAntiguo.getOrigen().getCodigoIATA(), vueloAntiguo.getDestino().getCodigoIATA(), vueloAntiguo.getPeso());
+                if (existente == null) return;
+                id = existente.getId();
+            }
+            if (redDeVuelos.actualizarArista(id, new PesoVuelo(nuevaDistancia, nuevoTiempo, nuevoCosto))) {
+                registrarCambio("~VUELO," + formatoVuelo(vueloAntiguo.getOrigen().getCodigoIATA(), vueloAntiguo.getDestino().getCodigoIATA(),
+                    vueloAntiguo.getDistancia(), vueloAntiguo.getTiempo(), vueloAntiguo.getCosto()) + "," + nuevaDistancia + "," + nuevoTiempo + "," + nuevoCosto + "," + id);
+            }
+        } finally {
+            desbloquearEscritura(sello);
+        }
+    }
 
-        // 1. Eliminar la arista antigua del grafo
-        PesoVuelo pesoAntiguo = new PesoVuelo(vueloAntiguo.getDistancia(), vueloAntiguo.getTiempo(), vueloAntiguo.getCosto(), vueloAntiguo.getPeso().getDemanda());
-        redDeVuelos.eliminarArista(vueloAntiguo.getOrigen(), vueloAntiguo.getDestino(), pesoAntiguo);
+    //Vuelo por su id, o null si no existe
+    public Vuelo getVuelo(int id) {
+        return leerOptimista(() -> redDeVuelos.getVuelo(id));
+    }
+    
+    //Inserta un lote de aeropuertos y vuelos en una sola pasada y guarda el estado una sola vez al final.
+    //Se ignoran los aeropuertos con codigo repetido y los vuelos cuyos aeropuertos no existen.
+    public void cargarLote(Collection<Aeropuerto> aeropuertos, Collection<RegistroVuelo> vuelos) {
+        long sello = bloquearEscritura();
+        try {
+            reportarRechazados(insertarLote(aeropuertos, vuelos, new HashMap<>()));
+            // Una carga grande se guarda completa en lugar de llenar el diario de registros
+            if (!cargando) {
+                compactar();
+            }
+        } finally {
+            desbloquearEscritura(sello);
+        }
+    }
 
-        // 2. Agregar la nueva arista al grafo
-        PesoVuelo pesoNuevo = new PesoVuelo(nuevaDistancia, nuevoTiempo, nuevoCosto, vueloAntiguo.getPeso().getDemanda());
-        redDeVuelos.agregarArista(vueloAntiguo.getOrigen(), vueloAntiguo.getDestino(), pesoNuevo);
+    //Inserta el lote y devuelve los vuelos que no se pudieron agregar por no existir sus aeropuertos.
+    //porCodigo guarda los aeropuertos insertados y los ya existentes que se van consultando, y puede
+    //compartirse entre lotes consecutivos mientras no se eliminen aeropuertos.
+    private List<RegistroVuelo> insertarLote(Collection<Aeropuerto> aeropuertos, Collection<RegistroVuelo> vuelos,
+                                             Map<String, Aeropuerto> porCodigo) {
+        List<Aeropuerto> nuevos = new ArrayList<>();
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            String codigo = aeropuerto.getCodigoIATA();
+            if (porCodigo.containsKey(codigo) || arbolAeropuertos.buscar(aeropuerto) != null) continue;
+            porCodigo.put(codigo, aeropuerto);
+            nuevos.add(aeropuerto);
+            redDeVuelos.agregarVertice(aeropuerto);
+        }
+        agregarAlDirectorio(nuevos);
+        List<RegistroVuelo> rechazados = new ArrayList<>();
+        for (RegistroVuelo vuelo : vuelos) {
+            Aeropuerto origen = resolverAeropuerto(porCodigo, vuelo.getCodigoOrigen());
+            Aeropuerto destino = resolverAeropuerto(porCodigo, vuelo.getCodigoDestino());
+            if (origen == null || destino == null) {
+                rechazados.add(vuelo);
+                continue;
+            }
+            redDeVuelos.agregarArista(vuelo.getId(), origen, destino, new PesoVuelo(vuelo.getDistancia(), vuelo.getTiempo(), vuelo.getCosto()), vuelo.getDemanda());
+        }
+        return rechazados;
+    }
 
-        // 3. Guardar el estado actualizado
-        guardarEstado();
+    //Agrega aeropuertos nuevos (sin repetidos ni ya existentes) al arbol y al indice por ciudad de una vez
+    private void agregarAlDirectorio(List<Aeropuerto> nuevos) {
+        if (nuevos.isEmpty()) return;
+        List<EntradaCiudad> entradas = new ArrayList<>(nuevos.size());
+        for (Aeropuerto aeropuerto : nuevos) {
+            entradas.add(new EntradaCiudad(aeropuerto));
+        }
+        arbolAeropuertos.insertarTodos(nuevos);
+        indiceCiudades.insertarTodos(entradas);
     }
-    
+
+    private static void reportarRechazados(List<RegistroVuelo> rechazados) {
+        if (!rechazados.isEmpty()) {
+            System.err.println(rechazados.size() + " vuelos ignorados por aeropuertos inexistentes");
+        }
+    }
+
+    private Aeropuerto resolverAeropuerto(Map<String, Aeropuerto> porCodigo, String codigo) {
+        Aeropuerto aeropuerto = porCodigo.get(codigo);
+        if (aeropuerto == null) {
+            aeropuerto = getAeropuertoPorCodigo(codigo);
+            if (aeropuerto != null) {
+                porCodigo.put(codigo, aeropuerto);
+            }
+        }
+        return aeropuerto;
+    }
+
     // --- MÉTODOS DE CONSULTA ---
     public Aeropuerto getAeropuertoPorCodigo(String codigoIATA) {
-        return arbolAeropuertos.buscar(new Aeropuerto(codigoIATA, "", ""));
+        return (codigoIATA != null) ? arbolAeropuertos.buscarPorClave(codigoIATA, Aeropuerto::getCodigoIATA) : null;
     }
     
+    //Vista en orden de codigo respaldada por el arbol (sin copia); para guardarla aparte hay que copiarla
     public Collection<Aeropuerto> getTodosLosAeropuertos() {
-        return arbolAeropuertos.getDatosEnOrden();
+        return arbolAeropuertos.getVista();
+    }
+
+    //Aeropuertos con codigo entre desde (incluido) y hasta (excluido), en orden; O(log n + k)
+    public List<Aeropuerto> getAeropuertosEnRango(String desde, String hasta) {
+        return arbolAeropuertos.rango(desde, hasta, Aeropuerto::getCodigoIATA, Comparator.naturalOrder());
+    }
+
+    //Aeropuertos cuyo codigo empieza con el prefijo (sin distinguir mayusculas), como maximo maximo
+    public List<Aeropuerto> buscarAeropuertosPorCodigo(String prefijo, int maximo) {
+        // Los codigos se guardan en mayusculas, asi que basta con convertir el prefijo
+        return arbolAeropuertos.buscarPorPrefijo(prefijo.toUpperCase(Locale.ROOT), Aeropuerto::getCodigoIATA, false, maximo);
+    }
+
+    //Aeropuertos cuya ciudad empieza con el prefijo (sin distinguir mayusculas), ordenados por ciudad
+    public List<Aeropuerto> buscarAeropuertosPorCiudad(String prefijo, int maximo) {
+        List<Aeropuerto> aeropuertos = new ArrayList<>();
+        for (EntradaCiudad entrada : indiceCiudades.buscarPorPrefijo(prefijo, EntradaCiudad::getCiudad, true, maximo)) {
+            aeropuertos.add(entrada.aeropuerto);
+        }
+        return aeropuertos;
     }
 
+    //Sugerencias para un texto parcial: primero los codigos que empiezan con el texto y luego las ciudades.
+    //Con el texto vacio devuelve los primeros aeropuertos por codigo
+    public List<Aeropuerto> filtrarAeropuertos(String texto, int maximo) {
+        String prefijo = (texto != null) ? texto.trim() : "";
+        List<Aeropuerto> resultado = buscarAeropuertosPorCodigo(prefijo, maximo);
+        if (prefijo.isEmpty()) return resultado;
+        Set<Aeropuerto> incluidos = new HashSet<>(resultado);
+        for (Aeropuerto aeropuerto : buscarAeropuertosPorCiudad(prefijo, maximo)) {
+            if (resultado.size() >= maximo) break;
+            if (incluidos.add(aeropuerto)) {
+                resultado.add(aeropuerto);
+            }
+        }
+        return resultado;
+    }
+
+    //Posicion del codigo en el orden de los aeropuertos (cuantos tienen un codigo menor) y su inversa
+    public int getPosicionAeropuerto(String codigoIATA) {
+        return arbolAeropuertos.posicion(codigoIATA, Aeropuerto::getCodigoIATA, Comparator.naturalOrder());
+    }
+
+    public Aeropuerto getAeropuertoEnPosicion(int posicion) {
+        return arbolAeropuertos.obtener(posicion);
+    }
+
+    //Copia de los vuelos tomada con el cerrojo de lectura: se puede recorrer aunque otro hilo modifique la red
     public List<Vuelo> getTodosLosVuelos() {
-        return redDeVuelos.getTodosLosVuelos();
+        return leerConCerrojo(redDeVuelos::getTodosLosVuelos);
+    }
+
+    public int getNumeroDeVuelos() {
+        return leerOptimista(redDeVuelos::getNumeroDeAristas);
     }
 
     public List<Vuelo> getVuelosDeAeropuerto(String codigoIATA) {
-        List<Vuelo> vuelosDelAeropuerto = new ArrayList<>();
         if (codigoIATA == null || codigoIATA.isEmpty()) {
-            return vuelosDelAeropuerto;
+            return new ArrayList<>();
         }
-        for (Vuelo vuelo : getTodosLosVuelos()) {
-            if (vuelo.getOrigen().getCodigoIATA().equals(codigoIATA) || 
-                vuelo.getDestino().getCodigoIATA().equals(codigoIATA)) {
-                vuelosDelAeropuerto.add(vuelo);
-            }
+        Aeropuerto aeropuerto = getAeropuertoPorCodigo(codigoIATA);
+        if (aeropuerto == null) {
+            return new ArrayList<>();
         }
-        return vuelosDelAeropuerto;
+        return leerConCerrojo(() -> {
+            // Salidas y luego llegadas; los vuelos de un aeropuerto a si mismo ya estan entre las salidas
+            List<Vuelo> vuelosDelAeropuerto = redDeVuelos.getVuelosSalientes(aeropuerto);
+            for (Vuelo vuelo : redDeVuelos.getVuelosEntrantes(aeropuerto)) {
+                if (!vuelo.getOrigen().equals(aeropuerto)) {
+                    vuelosDelAeropuerto.add(vuelo);
+                }
+            }
+            return vuelosDelAeropuerto;
+        });
     }
 
     public Ruta buscarRutaMasCorta(String codigoOrigen, String codigoDestino, Ruta.Criterio criterio) {
-        Aeropuerto origen = arbolAeropuertos.buscar(new Aeropuerto(codigoOrigen, "", ""));
-        Aeropuerto destino = arbolAeropuertos.buscar(new Aeropuerto(codigoDestino, "", ""));
-        Ruta ruta = redDeVuelos.encontrarRutaMasCorta(origen, destino, criterio);
-        if (ruta != null && !ruta.getAeropuertos().isEmpty()) {
-            incrementarDemandaRuta(ruta);
+        return buscarRutaMasCorta(codigoOrigen, codigoDestino, criterio, Ruta.Algoritmo.JERARQUIAS);
+    }
+
+    //Busca la ruta y suma su demanda (consultarRutaMasCorta seguido de registrarDemanda)
+    public Ruta buscarRutaMasCorta(String codigoOrigen, String codigoDestino, Ruta.Criterio criterio, Ruta.Algoritmo algoritmo) {
+        Ruta ruta = consultarRutaMasCorta(codigoOrigen, codigoDestino, criterio, algoritmo);
+        registrarDemanda(ruta);
+        return ruta;
+    }
+
+    //Solo consulta, sin tocar la demanda: no toma ningun cerrojo si la red compilada de la version actual ya
+    //existe, y se resuelve sobre ella (es inmutable), asi que no espera ni hace esperar a otras consultas
+    public Ruta consultarRutaMasCorta(String codigoOrigen, String codigoDestino, Ruta.Criterio criterio, Ruta.Algoritmo algoritmo) {
+        RedCompilada red = getRedCompilada();
+        List<Ruta> enCache = cacheRutas.obtener(red.getVersion(), codigoOrigen, codigoDestino, criterio, algoritmo, 1);
+        if (enCache != null) {
+            return enCache.get(0);
         }
+        Aeropuerto origen = getAeropuertoPorCodigo(codigoOrigen);
+        Aeropuerto destino = getAeropuertoPorCodigo(codigoDestino);
+        JerarquiaContraccion jerarquia = (algoritmo == Ruta.Algoritmo.JERARQUIAS) ? indiceJerarquias.obtener(red, criterio) : null;
+        Ruta ruta;
+        if (jerarquia != null) {
+            ruta = jerarquia.encontrarRutaMasCorta(origen, destino);
+        } else {
+            ruta = red.encontrarRutaMasCorta(origen, destino, criterio, algoritmo);
+            // Sin jerarquia vigente (recien cargada o modificada la red) se responde con Dijkstra, sin guardarlo
+            // como resultado de JERARQUIAS: ante empates la jerarquia puede elegir otra ruta
+            if (algoritmo == Ruta.Algoritmo.JERARQUIAS) return ruta;
+        }
+        cacheRutas.guardar(red.getVersion(), codigoOrigen, codigoDestino, criterio, algoritmo, 1, Collections.singletonList(ruta));
         return ruta;
     }
 
     public List<Ruta> buscarRutasAlternativas(String codigoOrigen, String codigoDestino, Ruta.Criterio criterio, int maxRutas) {
-        Aeropuerto origen = arbolAeropuertos.buscar(new Aeropuerto(codigoOrigen, "", ""));
-        Aeropuerto destino = arbolAeropuertos.buscar(new Aeropuerto(codigoDestino, "", ""));
-        List<Ruta> rutas = redDeVuelos.encontrarRutasAlternativas(origen, destino, criterio, maxRutas);
+        List<Ruta> rutas = consultarRutasAlternativas(codigoOrigen, codigoDestino, criterio, maxRutas);
         for (Ruta ruta : rutas) {
-            incrementarDemandaRuta(ruta);
+            registrarDemanda(ruta);
+        }
+        return rutas;
+    }
+
+    //Como consultarRutaMasCorta: sin cerrojos ni demanda
+    public List<Ruta> consultarRutasAlternativas(String codigoOrigen, String codigoDestino, Ruta.Criterio criterio, int maxRutas) {
+        RedCompilada red = getRedCompilada();
+        List<Ruta> rutas = cacheRutas.obtener(red.getVersion(), codigoOrigen, codigoDestino, criterio, null, maxRutas);
+        if (rutas == null) {
+            Aeropuerto origen = getAeropuertoPorCodigo(codigoOrigen);
+            Aeropuerto destino = getAeropuertoPorCodigo(codigoDestino);
+            rutas = Collections.unmodifiableList(red.encontrarRutasAlternativas(origen, destino, criterio, maxRutas));
+            cacheRutas.guardar(red.getVersion(), codigoOrigen, codigoDestino, criterio, null, maxRutas, rutas);
         }
         return rutas;
     }
 
+    //Red compilada de la ultima version completa del grafo. Si ya esta compilada basta una lectura optimista;
+    //si no, se compila con el cerrojo de lectura (sin escrituras a medias)
+    private RedCompilada getRedCompilada() {
+        long sello = cerrojo.tryOptimisticRead();
+        RedCompilada red = redDeVuelos.getRedCompiladaVigente();
+        if (red != null && cerrojo.validate(sello)) return red;
+        sello = bloquearLectura();
+        try {
+            return redDeVuelos.getRedCompilada();
+        } finally {
+            desbloquearLectura(sello);
+        }
+    }
+
+    //Suma la demanda de una ruta obtenida con las consultas. Varias busquedas pueden hacerlo a la vez: comparten
+    //el cerrojo de lectura (los contadores de demanda son concurrentes) y solo esperan a las escrituras
+    public void registrarDemanda(Ruta ruta) {
+        if (ruta == null || ruta.getAeropuertos().size() < 2) return;
+        long sello = bloquearLectura();
+        try {
+            cerrojoDemanda.readLock().lock();
+            try {
+                incrementarDemandaRuta(ruta);
+            } finally {
+                cerrojoDemanda.readLock().unlock();
+            }
+            // Si el diario se lleno, se compacta sin el cerrojo de escritura: el de lectura ya excluye los
+            // cambios en la red, y cerrojoDemanda solo detiene a las busquedas que registran demanda
+            if (registrosDiario.get() >= MAXIMO_REGISTROS_DIARIO) {
+                cerrojoDemanda.writeLock().lock();
+                try {
+                    if (registrosDiario.get() >= MAXIMO_REGISTROS_DIARIO) {
+                        compactar();
+                    }
+                } finally {
+                    cerrojoDemanda.writeLock().unlock();
+                }
+            }
+        } finally {
+            desbloquearLectura(sello);
+        }
+    }
+
+    //La ruta trae los ids de sus vuelos: la demanda se suma directamente en sus contadores
     private void incrementarDemandaRuta(Ruta ruta) {
-        List<Aeropuerto> aeropuertos = ruta.getAeropuertos();
+        if (ruta.getAeropuertos().size() < 2) return;
+        int[] idsVuelos = ruta.getIdsVuelos();
+        if (!vuelosVigentes(idsVuelos, ruta.getAeropuertos())) {
+            incrementarDemanda(ruta.getAeropuertos());
+            return;
+        }
+        // Cada tramo se registra como en -VUELO (origen, destino, pesos e id): con vuelos paralelos los codigos
+        // no bastan, y el id solo no sirve si al reproducir el diario ese id ya es de otro vuelo
+        StringBuilder registro = new StringBuilder("DEMANDA_TRAMOS");
+        for (int id : idsVuelos) {
+            redDeVuelos.incrementarDemanda(id);
+            registro.append(',').append(formatoTramo(redDeVuelos.getVuelo(id)));
+        }
+        registrarCambio(registro.toString());
+    }
+
+    //Para rutas dadas solo por sus aeropuertos (registros del diario): cada tramo usa el primer vuelo entre ellos
+    private void incrementarDemanda(List<Aeropuerto> aeropuertos) {
         if (aeropuertos.size() < 2) return;
 
         for (int i = 0; i < aeropuertos.size() - 1; i++) {
-            Aeropuerto origen = aeropuertos.get(i);
-            Aeropuerto destino = aeropuertos.get(i + 1);
-            // Encontrar el vuelo específico en el grafo y actualizar su peso
-            for (Vuelo v : redDeVuelos.getTodosLosVuelos()) {
-                if (v.getOrigen().equals(origen) && v.getDestino().equals(destino)) {
-                    v.getPeso().incrementarDemanda();
-                    break;
-                }
+            int id = redDeVuelos.buscarArista(aeropuertos.get(i), aeropuertos.get(i + 1));
+            if (id >= 0) {
+                redDeVuelos.incrementarDemanda(id);
             }
         }
-        guardarEstado();
+        registrarDemandaEnDiario(aeropuertos);
+    }
+
+    //Los ids siguen siendo los vuelos de la ruta (se pudo calcular con una version anterior de la red)
+    private boolean vuelosVigentes(int[] idsVuelos, List<Aeropuerto> aeropuertos) {
+        if (idsVuelos.length != aeropuertos.size() - 1) return false;
+        for (int i = 0; i < idsVuelos.length; i++) {
+            if (!redDeVuelos.esAristaEntre(idsVuelos[i], aeropuertos.get(i), aeropuertos.get(i + 1))) return false;
+        }
+        return true;
+    }
+
+    private void registrarDemandaEnDiario(List<Aeropuerto> aeropuertos) {
+        // Un solo registro por ruta con los codigos de sus aeropuertos
+        StringBuilder registro = new StringBuilder("DEMANDA");
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            registro.append(',').append(aeropuerto.getCodigoIATA());
+        }
+        registrarCambio(registro.toString());
     }
     
 
     // --- MÉTODOS DE ESTADÍSTICAS ---
+    //Se lee del ranking de demanda del grafo, sin ordenar todos los vuelos
     public List<Vuelo> getVuelosMasDemandados(int n) {
-        List<Vuelo> todosLosVuelos = getTodosLosVuelos();
-        todosLosVuelos.sort(Comparator.comparingInt((Vuelo v) -> v.getPeso().getDemanda()).reversed());
-        return todosLosVuelos.subList(0, Math.min(n, todosLosVuelos.size()));
+        return leerConCerrojo(() -> redDeVuelos.getVuelosMasDemandados(n));
     }
 
     public String getEstadisticasConexiones() {
-        StringBuilder sb = new StringBuilder();
-        for (Aeropuerto apt : getTodosLosAeropuertos()) {
-            int conexiones = redDeVuelos.getNumeroDeConexiones(apt);
-            sb.append(apt.getCodigoIATA()).append(": ").append(conexiones).append(" vuelos salientes\n");
-        }
-        return sb.toString();
+        return leerConCerrojo(() -> {
+            StringBuilder sb = new StringBuilder();
+            for (Aeropuerto apt : getTodosLosAeropuertos()) {
+                sb.append(apt.getCodigoIATA()).append(": ")
+                  .append(redDeVuelos.getGradoSalida(apt)).append(" vuelos salientes, ")
+                  .append(redDeVuelos.getGradoEntrada(apt)).append(" entrantes\n");
+            }
+            return sb.toString();
+        });
     }
 
+    //Mas y menos conectado segun sus vuelos salientes, del indice de grados del grafo; a igualdad, el de menor codigo
     public Aeropuerto getAeropuertoMasConectado() {
-        return Collections.max(getTodosLosAeropuertos(), Comparator.comparingInt(redDeVuelos::getNumeroDeConexiones));
+        return leerConCerrojo(redDeVuelos::getVerticeMasConectado);
     }
 
     public Aeropuerto getAeropuertoMenosConectado() {
-        return Collections.min(getTodosLosAeropuertos(), Comparator.comparingInt(redDeVuelos::getNumeroDeConexiones));
+        return leerConCerrojo(redDeVuelos::getVerticeMenosConectado);
     }
 
     // --- MÉTODOS DE PERSISTENCIA ---
     public void cargarDatosDesdeArchivos() {
-        File archivoPersistencia = new File(ARCHIVO_PERSISTENCIA);
+        long sello = bloquearEscritura();
+        cargando = true;
+        try {
+            reproducirDiario(cargarEstado());
+        } finally {
+            cargando = false;
+            desbloquearEscritura(sello);
+        }
+    }
+
+    //Carga el estado guardado y devuelve la generacion a partir de la cual hay que reaplicar el diario
+    private long cargarEstado() {
+        // El snapshot mas reciente que este completo y con el CRC correcto; si no, uno de los anteriores
+        boolean haySnapshots = false;
+        for (int k = 0; k < COPIAS_SNAPSHOT; k++) {
+            File copia = SnapshotBinario.copia(archivoSnapshot, k);
+            if (!copia.exists()) continue;
+            haySnapshots = true;
+            try {
+                long generacion = cargarSnapshot(copia);
+                estadoCompactado = (k == 0);
+                if (k > 0) {
+                    System.err.println("Estado recuperado desde el snapshot anterior " + copia.getPath());
+                }
+                return generacion;
+            } catch (IOException e) {
+                System.err.println("Error al cargar datos desde el snapshot binario " + copia.getPath() + ":");
+                e.printStackTrace();
+                // Si quedara en su lugar, la proxima compactacion lo rotaria sobre la copia valida
+                SnapshotBinario.apartar(copia);
+            }
+        }
+        if (haySnapshots) {
+            System.err.println("¡Error Crítico! Ningún snapshot binario es válido; se cargan los datos en CSV");
+        }
+
         if (archivoPersistencia.exists()) {
             // Si el archivo de persistencia existe, se carga desde él.
-            try (InputStream fis = new FileInputStream(archivoPersistencia);
-                BufferedReader reader = new BufferedReader(new InputStreamReader(fis))) {
-                cargarDatos(reader);
+            try {
+                cargarCSV(archivoPersistencia);
             } catch (IOException e) {
                 System.err.println("Error al cargar datos desde persistencia:");
                 e.printStackTrace();
@@ -180,10 +598,10 @@ public class SistemaDeVuelos {
         } else {
             // Si no, se carga desde el archivo de recursos (datos iniciales).
             try (InputStream inputStream = SistemaDeVuelos.class.getResourceAsStream("/proyectoaeropuerto/datos_vuelos.csv");
-                BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
+                Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
                 if (inputStream == null) {
                     System.err.println("¡Error Crítico! No se encontró el archivo de recursos 'datos_vuelos.csv'");
-                    return;
+                    return diario.getUltimaGeneracion();
                 }
                 cargarDatos(reader);
             } catch (IOException | NullPointerException e) {
@@ -191,57 +609,370 @@ public class SistemaDeVuelos {
                 e.printStackTrace();
             }
         }
+        // Sin snapshot solo se reaplica el diario mas reciente
+        return diario.getUltimaGeneracion();
     }
 
-    private void cargarDatos(BufferedReader reader) throws IOException {
-        String line;
-        List<String[]> lineasVuelos = new ArrayList<>();
-        while ((line = reader.readLine()) != null) {
-            String[] datos = line.split(",");
-            if (datos.length > 0) {
-                if (datos[0].equalsIgnoreCase("AEROPUERTO") && datos.length >= 4) {
-                    agregarAeropuerto(datos[1].trim(), datos[2].trim(), datos[3].trim());
-                } else if (datos[0].equalsIgnoreCase("VUELO") && datos.length >= 6) {
-                    lineasVuelos.add(datos);
+    //Agrega los aeropuertos y vuelos de un snapshot binario (ver SnapshotBinario) y devuelve su generacion
+    long cargarSnapshot(File archivo) throws IOException {
+        // El archivo se lee antes de tomar el cerrojo
+        SnapshotBinario.Contenido contenido = SnapshotBinario.leer(archivo);
+        Aeropuerto[] aeropuertos = contenido.aeropuertos;
+        long sello = bloquearEscritura();
+        try {
+            // El snapshot guarda los aeropuertos en orden de codigo, asi que el arbol se arma sin reordenar
+            List<Aeropuerto> nuevos = new ArrayList<>(aeropuertos.length);
+            for (int i = 0; i < aeropuertos.length; i++) {
+                Aeropuerto existente = arbolAeropuertos.buscar(aeropuertos[i]);
+                if (existente != null) {
+                    aeropuertos[i] = existente;
+                } else {
+                    nuevos.add(aeropuertos[i]);
+                    redDeVuelos.agregarVertice(aeropuertos[i]);
                 }
             }
+            agregarAlDirectorio(nuevos);
+            for (int v = 0; v < contenido.getNumeroDeVuelos(); v++) {
+                redDeVuelos.agregarArista(contenido.ids[v], aeropuertos[contenido.origenes[v]], aeropuertos[contenido.destinos[v]],
+                    new PesoVuelo(contenido.distancias[v], contenido.tiempos[v], contenido.costos[v]), contenido.demandas[v]);
+            }
+        } finally {
+            desbloquearEscritura(sello);
         }
-        for (String[] datosVuelo : lineasVuelos) {
-            String origen = datosVuelo[1].trim();
-            String destino = datosVuelo[2].trim();
-            int distancia = Integer.parseInt(datosVuelo[3].trim());
-            int tiempo = Integer.parseInt(datosVuelo[4].trim());
-            double costo = Double.parseDouble(datosVuelo[5].trim());
-            int demanda = (datosVuelo.length > 6) ? Integer.parseInt(datosVuelo[6].trim()) : 0;
-            agregarVuelo(origen, destino, distancia, tiempo, costo, demanda);
-        }
+        return contenido.generacion;
     }
 
-    public void guardarEstado() {
-        List<String> lineas = new ArrayList<>();
-        for (Aeropuerto apt : getTodosLosAeropuertos()) {
-            lineas.add("AEROPUERTO," + apt.getCodigoIATA() + "," + apt.getNombre() + "," + apt.getCiudad());
+    void escribirSnapshot(File archivo) throws IOException {
+        File parentDir = archivo.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
         }
-        for (Vuelo vuelo : getTodosLosVuelos()) {
-            lineas.add("VUELO," + vuelo.getOrigen().getCodigoIATA() + "," + vuelo.getDestino().getCodigoIATA() + "," + vuelo.getDistancia() + "," + vuelo.getTiempo() + "," + vuelo.getCosto() + "," + vuelo.getPeso().getDemanda());
+        SnapshotBinario.Contenido contenido;
+        long sello = bloquearLectura();
+        try {
+            contenido = SnapshotBinario.capturar(getTodosLosAeropuertos(), redDeVuelos.getNumeroDeAristas(), redDeVuelos.getVuelos());
+        } finally {
+            desbloquearLectura(sello);
         }
+        SnapshotBinario.escribir(archivo, contenido, 1);
+    }
 
+    //Agrega los datos de un CSV (formato AEROPUERTO/VUELO) y guarda el estado resultante
+    public void importarCSV(File archivo) throws IOException {
+        long sello = bloquearEscritura();
         try {
-            File archivo = new File(ARCHIVO_PERSISTENCIA);
-            File parentDir = archivo.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                parentDir.mkdirs();
+            cargarCSV(archivo);
+            compactar();
+        } finally {
+            desbloquearEscritura(sello);
+        }
+        persistencia.esperar();
+    }
+
+    //Escribe el estado actual en formato CSV (AEROPUERTO/VUELO)
+    public void exportarCSV(File archivo) throws IOException {
+        File parentDir = archivo.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        // Con el cerrojo de lectura: el archivo refleja un unico estado aunque otros hilos quieran escribir
+        long sello = bloquearLectura();
+        try (Writer fw = new OutputStreamWriter(new FileOutputStream(archivo, false), StandardCharsets.UTF_8);
+            BufferedWriter bw = new BufferedWriter(fw);
+            PrintWriter out = new PrintWriter(bw)) {
+            for (Aeropuerto apt : getTodosLosAeropuertos()) {
+                out.println("AEROPUERTO," + formatoAeropuerto(apt));
+            }
+            redDeVuelos.getVuelos().forEach(vuelo ->
+                out.println("VUELO," + formatoVuelo(vuelo.getOrigen().getCodigoIATA(), vuelo.getDestino().getCodigoIATA(),
+                    vuelo.getDistancia(), vuelo.getTiempo(), vuelo.getCosto()) + "," + vuelo.getDemanda() + "," + vuelo.getId()));
+            if (out.checkError()) {
+                throw new IOException("No se pudo escribir " + archivo.getPath());
+            }
+        } finally {
+            desbloquearLectura(sello);
+        }
+    }
+
+    void cargarCSV(File archivo) throws IOException {
+        long sello = bloquearEscritura();
+        try (InputStream fis = new FileInputStream(archivo);
+            Reader reader = new InputStreamReader(fis, StandardCharsets.UTF_8)) {
+            cargarDatos(reader);
+        } finally {
+            desbloquearEscritura(sello);
+        }
+    }
+
+    private void cargarDatos(Reader reader) throws IOException {
+        // Vuelos leidos antes que alguno de sus aeropuertos; se reintentan al final
+        List<RegistroVuelo> diferidos = new ArrayList<>();
+        Map<String, Aeropuerto> porCodigo = new HashMap<>();
+        new LectorCSV().leer(reader, new LectorCSV.Destino() {
+            @Override
+            public void lote(List<Aeropuerto> aeropuertos, List<RegistroVuelo> vuelos) {
+                diferidos.addAll(insertarLote(aeropuertos, vuelos, porCodigo));
             }
-            try (FileWriter fw = new FileWriter(archivo, false);
-                BufferedWriter bw = new BufferedWriter(fw);
-                PrintWriter out = new PrintWriter(bw)) {
-                for (String linea : lineas) {
-                    out.println(linea);
+
+            @Override
+            public void lineaInvalida(int numeroLinea, String linea, String motivo) {
+                System.err.println("Línea " + numeroLinea + " ignorada (" + motivo + "): " + linea);
+            }
+        });
+        reportarRechazados(insertarLote(Collections.emptyList(), diferidos, porCodigo));
+    }
+
+    //Vuelve a aplicar, en orden, los cambios registrados despues del ultimo estado guardado
+    private void reproducirDiario(long desdeGeneracion) {
+        List<String> registros = diario.leer(desdeGeneracion);
+        registrosDiario.set(registros.size());
+        if (!registros.isEmpty()) {
+            estadoCompactado = false;
+        }
+        for (String registro : registros) {
+            try {
+                aplicarRegistro(registro.split(","));
+            } catch (RuntimeException e) {
+                // Un registro incompleto (por ejemplo, cortado por un cierre abrupto) se descarta
+                System.err.println("Registro del diario ignorado: " + registro);
+            }
+        }
+    }
+
+    private void aplicarRegistro(String[] datos) {
+        switch (datos[0]) {
+            case "+AEROPUERTO":
+                if (datos.length >= 6) {
+                    agregarAeropuerto(datos[1], datos[2], datos[3], Double.parseDouble(datos[4]), Double.parseDouble(datos[5]));
+                } else {
+                    agregarAeropuerto(datos[1], datos[2], datos[3]);
+                }
+                break;
+            case "-AEROPUERTO":
+                eliminarAeropuerto(getAeropuertoPorCodigo(datos[1]));
+                break;
+            case "~AEROPUERTO":
+                editarAeropuerto(datos[1], datos[2], datos[3]);
+                break;
+            case "+VUELO":
+                agregarVuelo((datos.length > 7) ? Integer.parseInt(datos[7]) : -1, datos[1], datos[2], Integer.parseInt(datos[3]),
+                    Integer.parseInt(datos[4]), Double.parseDouble(datos[5]), Integer.parseInt(datos[6]));
+                break;
+            case "-VUELO":
+                eliminarVuelo(buscarVuelo(datos, 6));
+                break;
+            case "~VUELO":
+                editarVuelo(buscarVuelo(datos, 9), Integer.parseInt(datos[6]), Integer.parseInt(datos[7]), Double.parseDouble(datos[8]));
+                break;
+            case "DEMANDA_TRAMOS":
+                StringBuilder tramos = new StringBuilder("DEMANDA_TRAMOS");
+                for (int i = 1; i + 5 < datos.length; i += 6) {
+                    Vuelo vuelo = buscarVuelo(datos, i, i + 5);
+                    if (vuelo != null) {
+                        redDeVuelos.incrementarDemanda(vuelo.getId());
+                        tramos.append(',').append(formatoTramo(vuelo));
+                    }
+                }
+                registrarCambio(tramos.toString());
+                break;
+            // Formato anterior a DEMANDA_TRAMOS, solo con los ids de los vuelos
+            case "DEMANDA_VUELOS":
+                StringBuilder registro = new StringBuilder("DEMANDA_VUELOS");
+                for (int i = 1; i < datos.length; i++) {
+                    int id = Integer.parseInt(datos[i]);
+                    if (redDeVuelos.getVuelo(id) != null) {
+                        redDeVuelos.incrementarDemanda(id);
+                    }
+                    registro.append(',').append(id);
                 }
+                registrarCambio(registro.toString());
+                break;
+            case "DEMANDA":
+                List<Aeropuerto> aeropuertos = new ArrayList<>();
+                for (int i = 1; i < datos.length; i++) {
+                    Aeropuerto aeropuerto = getAeropuertoPorCodigo(datos[i]);
+                    if (aeropuerto == null) {
+                        throw new IllegalArgumentException("Aeropuerto desconocido: " + datos[i]);
+                    }
+                    aeropuertos.add(aeropuerto);
+                }
+                incrementarDemanda(aeropuertos);
+                break;
+            default:
+                throw new IllegalArgumentException("Tipo de registro desconocido: " + datos[0]);
+        }
+    }
+
+    //Vuelo del grafo con el origen, destino y pesos de las columnas 1 a 5 del registro. Si el registro
+    //trae el id en columnaId se usa ese vuelo; los registros anteriores a los ids toman el primero que coincide
+    private Vuelo buscarVuelo(String[] datos, int columnaId) {
+        return buscarVuelo(datos, 1, columnaId);
+    }
+
+    //Igual, con el origen, destino y pesos a partir de la columna inicio
+    private Vuelo buscarVuelo(String[] datos, int inicio, int columnaId) {
+        PesoVuelo peso = new PesoVuelo(Integer.parseInt(datos[inicio + 2]), Integer.parseInt(datos[inicio + 3]),
+            Double.parseDouble(datos[inicio + 4]));
+        if (datos.length > columnaId) {
+            Vuelo vuelo = redDeVuelos.getVuelo(Integer.parseInt(datos[columnaId]));
+            if (vuelo != null && vuelo.getOrigen().getCodigoIATA().equals(datos[inicio])
+                    && vuelo.getDestino().getCodigoIATA().equals(datos[inicio + 1]) && vuelo.getPeso().equals(peso)) {
+                return vuelo;
             }
-        } catch (IOException e) {
-            System.err.println("Error al reescribir archivo de persistencia:");
-            e.printStackTrace();
+        }
+        return buscarVuelo(datos[inicio], datos[inicio + 1], peso);
+    }
+
+    private Vuelo buscarVuelo(String codigoOrigen, String codigoDestino, PesoVuelo peso) {
+        Aeropuerto origen = getAeropuertoPorCodigo(codigoOrigen);
+        if (origen == null) return null;
+        // Solo se revisan las salidas del origen
+        for (Vuelo vuelo : redDeVuelos.getVuelosSalientes(origen)) {
+            if (vuelo.getDestino().getCodigoIATA().equals(codigoDestino) && vuelo.getPeso().equals(peso)) {
+                return vuelo;
+            }
+        }
+        return null;
+    }
+
+    //Encola el cambio para el diario y compacta cuando este crece demasiado. Se llama con el cerrojo de escritura
+    //o, para la demanda, con el de lectura; en ese caso compacta registrarDemanda
+    private void registrarCambio(String registro) {
+        if (cargando) return;
+        persistencia.registrar(registro);
+        estadoCompactado = false;
+        if (registrosDiario.incrementAndGet() >= MAXIMO_REGISTROS_DIARIO && escritor == Thread.currentThread()) {
+            compactar();
+        }
+    }
+
+    //El diario y el CSV separan los campos con comas y los registros con saltos de linea, sin comillas:
+    //un nombre o ciudad con alguno de ellos desplazaria los campos siguientes al reaplicar el registro
+    public static boolean esCampoValido(String texto) {
+        return texto != null && texto.indexOf(',') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0;
+    }
+
+    private static void validarCampos(String... textos) {
+        for (String texto : textos) {
+            if (!esCampoValido(texto)) {
+                throw new IllegalArgumentException("Campo con comas o saltos de línea: " + texto);
+            }
+        }
+    }
+
+    private static String formatoAeropuerto(Aeropuerto apt) {
+        String coordenadas = apt.tieneCoordenadas() ? "," + apt.getLatitud() + "," + apt.getLongitud() : "";
+        return apt.getCodigoIATA() + "," + apt.getNombre() + "," + apt.getCiudad() + coordenadas;
+    }
+
+    private static String formatoVuelo(String origen, String destino, int distancia, int tiempo, double costo) {
+        return origen + "," + destino + "," + distancia + "," + tiempo + "," + costo;
+    }
+
+    //Vuelo con su id, para los registros de demanda
+    private static String formatoTramo(Vuelo vuelo) {
+        return formatoVuelo(vuelo.getOrigen().getCodigoIATA(), vuelo.getDestino().getCodigoIATA(),
+            vuelo.getDistancia(), vuelo.getTiempo(), vuelo.getCosto()) + "," + vuelo.getId();
+    }
+
+    //Captura el estado completo y lo encola para escribirlo en ARCHIVO_SNAPSHOT; al escribirse se vacia el diario.
+    //Requiere el cerrojo de escritura, o el de lectura con cerrojoDemanda en escritura: asi ninguna busqueda
+    //suma demanda entre la captura y su registro
+    private void compactar() {
+        File parentDir = archivoSnapshot.getAbsoluteFile().getParentFile();
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+        persistencia.compactar(SnapshotBinario.capturar(getTodosLosAeropuertos(), redDeVuelos.getNumeroDeAristas(), redDeVuelos.getVuelos()));
+        registrosDiario.set(0);
+        estadoCompactado = true;
+    }
+
+    //Compacta (si hubo cambios desde el ultimo snapshot) y espera a que el estado quede escrito en disco
+    public void guardarEstado() {
+        long sello = bloquearEscritura();
+        try {
+            if (!estadoCompactado) {
+                compactar();
+            }
+        } finally {
+            desbloquearEscritura(sello);
+        }
+        persistencia.esperar();
+    }
+
+    //Guarda el estado y detiene el hilo de persistencia; se llama al cerrar la aplicacion
+    public void cerrar() {
+        guardarEstado();
+        persistencia.cerrar();
+    }
+
+    //Escribe lo encolado en el diario y detiene el hilo sin compactar, como si la aplicacion se cortara ahi
+    //(los tests reabren despues los mismos archivos)
+    void detenerSinGuardar() {
+        persistencia.cerrar();
+    }
+
+    //Aciertos, fallos y desalojos de la cache de rutas (para dimensionarla) y cola y latencia de la persistencia
+    public String getEstadisticasRendimiento() {
+        return cacheRutas + "\n" + persistencia;
+    }
+
+    // --- CONCURRENCIA ---
+    //Devuelve 0 si el hilo ya tenia el cerrojo de escritura (una escritura anidada no lo vuelve a tomar)
+    private long bloquearEscritura() {
+        if (escritor == Thread.currentThread()) return 0;
+        long sello = cerrojo.writeLock();
+        escritor = Thread.currentThread();
+        return sello;
+    }
+
+    private void desbloquearEscritura(long sello) {
+        if (sello == 0) return;
+        escritor = null;
+        cerrojo.unlockWrite(sello);
+    }
+
+    //Cerrojo de lectura compartido; no debe volver a tomarlo un hilo que ya lo tiene
+    private long bloquearLectura() {
+        return (escritor == Thread.currentThread()) ? 0 : cerrojo.readLock();
+    }
+
+    private void desbloquearLectura(long sello) {
+        if (sello != 0) {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    //Consultas que recorren la red o ponen al dia estado interno (como el indice de grados o el ranking de demanda)
+    private <R> R leerConCerrojo(Supplier<R> consulta) {
+        long sello = bloquearLectura();
+        try {
+            return consulta.get();
+        } finally {
+            desbloquearLectura(sello);
+        }
+    }
+
+    //Consulta optimista, solo para lecturas de O(1) campos (nada que recorra listas o mapas): se hace sin
+    //bloquear y se descarta si un escritor intervino mientras tanto. En ese caso (o si fallo por ver los
+    //datos a medio cambiar) se repite con el cerrojo de lectura
+    private <R> R leerOptimista(Supplier<R> consulta) {
+        if (escritor == Thread.currentThread()) return consulta.get();
+        long sello = cerrojo.tryOptimisticRead();
+        if (sello != 0) {
+            try {
+                R resultado = consulta.get();
+                if (cerrojo.validate(sello)) return resultado;
+            } catch (RuntimeException e) {
+                if (cerrojo.validate(sello)) throw e;
+            }
+        }
+        sello = cerrojo.readLock();
+        try {
+            return consulta.get();
+        } finally {
+            cerrojo.unlockRead(sello);
         }
     }
 }
@@ -0,0 +1,304 @@
+package proyectoaeropuerto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+//Formato binario del estado de la red, pensado para abrirse con un FileChannel mapeado en memoria.
+//Estructura (enteros big-endian):
+//  cabecera: MAGICO, VERSION_FORMATO, generacion (long), numero de aeropuertos (n), numero de vuelos (m),
+//            tamaño del cuerpo en bytes (long) y CRC32 del cuerpo seguido de los campos anteriores de la cabecera
+//  cuerpo:
+//    tabla de cadenas: tamaño en bytes, n*3 posiciones de fin (codigo, nombre, ciudad) y los bytes UTF-8
+//    columnas de aeropuertos: latitudes double[n], longitudes double[n]
+//    columnas de vuelos: origenes int[m], destinos int[m] (indices de aeropuerto), distancias int[m],
+//                        tiempos int[m], costos double[m], demandas int[m], ids int[m] (ids de arista en el grafo)
+class SnapshotBinario {
+    private static final int MAGICO = 0x4145524F; // "AERO"
+    private static final int VERSION_FORMATO = 4;
+    //La version 3 tiene el mismo formato, pero su CRC cubre solo el cuerpo
+    private static final int VERSION_CRC_CUERPO = 3;
+    //La version 2 tiene la misma cabecera que la 3 pero no guarda los ids de los vuelos
+    private static final int VERSION_SIN_IDS = 2;
+    private static final int TAMANO_CABECERA = 36;
+    //Los snapshots de la version 1 no tienen generacion, tamaño ni CRC; se siguen pudiendo leer
+    private static final int TAMANO_CABECERA_V1 = 16;
+
+    //Contenido leido de un snapshot: aeropuertos y vuelos por columnas
+    static class Contenido {
+        final Aeropuerto[] aeropuertos;
+        final int[] origenes;
+        final int[] destinos;
+        final int[] distancias;
+        final int[] tiempos;
+        final double[] costos;
+        final int[] demandas;
+        //Id de cada vuelo (-1 en snapshots anteriores a la version 3: se asigna uno nuevo al cargar)
+        final int[] ids;
+        //Numero de compactacion que produjo el snapshot (ver DiarioCambios)
+        long generacion;
+
+        Contenido(Aeropuerto[] aeropuertos, int numeroVuelos) {
+            this.aeropuertos = aeropuertos;
+            this.origenes = new int[numeroVuelos];
+            this.destinos = new int[numeroVuelos];
+            this.distancias = new int[numeroVuelos];
+            this.tiempos = new int[numeroVuelos];
+            this.costos = new double[numeroVuelos];
+            this.demandas = new int[numeroVuelos];
+            this.ids = new int[numeroVuelos];
+        }
+
+        int getNumeroDeVuelos() {
+            return origenes.length;
+        }
+    }
+
+    //Copia el estado actual (incluidos nombres y demandas, que pueden cambiar despues) para escribirlo luego
+    static Contenido capturar(Collection<Aeropuerto> aeropuertos, int numeroVuelos, Stream<Vuelo> vuelos) {
+        Map<Aeropuerto, Integer> indices = new HashMap<>();
+        Aeropuerto[] copias = new Aeropuerto[aeropuertos.size()];
+        int i = 0;
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            indices.put(aeropuerto, i);
+            copias[i++] = new Aeropuerto(aeropuerto.getCodigoIATA(), aeropuerto.getNombre(), aeropuerto.getCiudad(),
+                aeropuerto.getLatitud(), aeropuerto.getLongitud());
+        }
+        Contenido contenido = new Contenido(copias, numeroVuelos);
+        int v = 0;
+        for (Iterator<Vuelo> it = vuelos.iterator(); it.hasNext(); ) {
+            Vuelo vuelo = it.next();
+            contenido.origenes[v] = indices.get(vuelo.getOrigen());
+            contenido.destinos[v] = indices.get(vuelo.getDestino());
+            contenido.distancias[v] = vuelo.getDistancia();
+            contenido.tiempos[v] = vuelo.getTiempo();
+            contenido.costos[v] = vuelo.getCosto();
+            contenido.demandas[v] = (int) Math.min(Integer.MAX_VALUE, vuelo.getDemanda());
+            contenido.ids[v] = vuelo.getId();
+            v++;
+        }
+        return contenido;
+    }
+
+    //Escribe el snapshot en un archivo temporal, lo sincroniza con el disco y lo renombra sobre el
+    //destino, de modo que un lector (o un cierre abrupto) nunca ve un snapshot a medio escribir.
+    //Antes del renombrado, el snapshot anterior pasa a archivo.1, ese a archivo.2, etc. (copias en total).
+    static void escribir(File archivo, Contenido contenido, int copias) throws IOException {
+        Aeropuerto[] aeropuertos = contenido.aeropuertos;
+        byte[][] cadenas = new byte[aeropuertos.length * 3][];
+        int bytesCadenas = 0;
+        for (int i = 0; i < aeropuertos.length; i++) {
+            cadenas[i * 3] = aeropuertos[i].getCodigoIATA().getBytes(StandardCharsets.UTF_8);
+            cadenas[i * 3 + 1] = aeropuertos[i].getNombre().getBytes(StandardCharsets.UTF_8);
+            cadenas[i * 3 + 2] = aeropuertos[i].getCiudad().getBytes(StandardCharsets.UTF_8);
+            bytesCadenas += cadenas[i * 3].length + cadenas[i * 3 + 1].length + cadenas[i * 3 + 2].length;
+        }
+
+        int numeroVuelos = contenido.getNumeroDeVuelos();
+        long bytesCuerpo = 4 + aeropuertos.length * 12L + bytesCadenas + aeropuertos.length * 16L + numeroVuelos * 32L;
+
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try (FileOutputStream salida = new FileOutputStream(temporal)) {
+            // La cabecera se escribe al final, cuando ya se conoce el CRC del cuerpo
+            salida.write(new byte[TAMANO_CABECERA]);
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(salida, crc), 1 << 16));
+
+            out.writeInt(bytesCadenas);
+            int fin = 0;
+            for (byte[] cadena : cadenas) {
+                fin += cadena.length;
+                out.writeInt(fin);
+            }
+            for (byte[] cadena : cadenas) {
+                out.write(cadena);
+            }
+            for (Aeropuerto aeropuerto : aeropuertos) out.writeDouble(aeropuerto.getLatitud());
+            for (Aeropuerto aeropuerto : aeropuertos) out.writeDouble(aeropuerto.getLongitud());
+
+            for (int origen : contenido.origenes) out.writeInt(origen);
+            for (int destino : contenido.destinos) out.writeInt(destino);
+            for (int distancia : contenido.distancias) out.writeInt(distancia);
+            for (int tiempo : contenido.tiempos) out.writeInt(tiempo);
+            for (double costo : contenido.costos) out.writeDouble(costo);
+            for (int demanda : contenido.demandas) out.writeInt(demanda);
+            for (int id : contenido.ids) out.writeInt(id);
+            out.flush();
+
+            ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+            cabecera.putInt(MAGICO).putInt(VERSION_FORMATO).putLong(contenido.generacion)
+                .putInt(aeropuertos.length).putInt(numeroVuelos).putLong(bytesCuerpo);
+            // El CRC tambien protege la generacion y los tamaños, de los que depende como se lee el resto
+            crc.update(cabecera.array(), 0, cabecera.position());
+            cabecera.putInt((int) crc.getValue());
+            cabecera.flip();
+            FileChannel canal = salida.getChannel();
+            while (cabecera.hasRemaining()) {
+                canal.write(cabecera, cabecera.position());
+            }
+            salida.getFD().sync();
+        }
+        rotar(archivo, copias);
+        mover(temporal, archivo);
+    }
+
+    //Aparta una copia que no paso la validacion (a archivo.corrupto), para que la proxima rotacion
+    //no la mueva sobre una copia valida
+    static void apartar(File copia) {
+        try {
+            mover(copia, new File(copia.getPath() + ".corrupto"));
+        } catch (IOException e) {
+            System.err.println("No se pudo apartar el snapshot dañado " + copia.getPath() + ":");
+            e.printStackTrace();
+        }
+    }
+
+    //Copia anterior numero k del snapshot (0 es el propio archivo)
+    static File copia(File archivo, int k) {
+        return (k == 0) ? archivo : new File(archivo.getPath() + "." + k);
+    }
+
+    private static void rotar(File archivo, int copias) throws IOException {
+        if (copias <= 1 || !archivo.exists()) return;
+        Files.deleteIfExists(copia(archivo, copias - 1).toPath());
+        for (int k = copias - 2; k >= 0; k--) {
+            if (copia(archivo, k).exists()) {
+                mover(copia(archivo, k), copia(archivo, k + 1));
+            }
+        }
+    }
+
+    private static void mover(File origen, File destino) throws IOException {
+        try {
+            Files.move(origen.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origen.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static Contenido leer(File archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.remaining() < TAMANO_CABECERA_V1 || buffer.getInt() != MAGICO) {
+                throw new IOException("No es un snapshot de la red de vuelos: " + archivo.getPath());
+            }
+            int version = buffer.getInt();
+            long generacion = 0;
+            int numeroAeropuertos;
+            int numeroVuelos;
+            boolean conIds = version == VERSION_FORMATO || version == VERSION_CRC_CUERPO;
+            if (conIds || version == VERSION_SIN_IDS) {
+                generacion = buffer.getLong();
+                numeroAeropuertos = buffer.getInt();
+                numeroVuelos = buffer.getInt();
+                long bytesCuerpo = buffer.getLong();
+                int crcEsperado = buffer.getInt();
+                if (canal.size() != TAMANO_CABECERA + bytesCuerpo) {
+                    throw new IOException("Snapshot incompleto: " + archivo.getPath() + " tiene " + canal.size()
+                        + " bytes, se esperaban " + (TAMANO_CABECERA + bytesCuerpo));
+                }
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice());
+                if (version == VERSION_FORMATO) {
+                    byte[] cabecera = new byte[TAMANO_CABECERA - 4];
+                    buffer.get(0, cabecera);
+                    crc.update(cabecera);
+                }
+                if ((int) crc.getValue() != crcEsperado) {
+                    throw new IOException("Snapshot corrupto: el CRC de " + archivo.getPath() + " no coincide");
+                }
+            } else if (version == 1) {
+                numeroAeropuertos = buffer.getInt();
+                numeroVuelos = buffer.getInt();
+            } else {
+                throw new IOException("Version de snapshot no soportada: " + version);
+            }
+
+            // Los tamaños se comprueban contra el archivo antes de reservar memoria para las columnas
+            int bytesCadenas = buffer.getInt();
+            long bytesEsperados = 4 + numeroAeropuertos * 28L + bytesCadenas + numeroVuelos * (conIds ? 32L : 28L);
+            long bytesRestantes = canal.size() - buffer.position() + 4;
+            if (numeroAeropuertos < 0 || numeroVuelos < 0 || bytesCadenas < 0
+                    || (version == 1 ? bytesEsperados > bytesRestantes : bytesEsperados != bytesRestantes)) {
+                throw new IOException("Snapshot corrupto: los tamaños de la cabecera de " + archivo.getPath()
+                    + " no coinciden con el archivo");
+            }
+            int[] fines = new int[numeroAeropuertos * 3];
+            buffer.asIntBuffer().get(fines);
+            buffer.position(buffer.position() + fines.length * 4);
+            for (int i = 0; i < fines.length; i++) {
+                if (fines[i] < ((i > 0) ? fines[i - 1] : 0) || fines[i] > bytesCadenas) {
+                    throw new IOException("Snapshot corrupto: tabla de cadenas invalida en " + archivo.getPath());
+                }
+            }
+            byte[] cadenas = new byte[bytesCadenas];
+            buffer.get(cadenas);
+            double[] latitudes = new double[numeroAeropuertos];
+            double[] longitudes = new double[numeroAeropuertos];
+            leerColumna(buffer, latitudes);
+            leerColumna(buffer, longitudes);
+
+            Aeropuerto[] aeropuertos = new Aeropuerto[numeroAeropuertos];
+            int inicio = 0;
+            for (int i = 0; i < numeroAeropuertos; i++) {
+                String codigo = new String(cadenas, inicio, fines[i * 3] - inicio, StandardCharsets.UTF_8);
+                String nombre = new String(cadenas, fines[i * 3], fines[i * 3 + 1] - fines[i * 3], StandardCharsets.UTF_8);
+                String ciudad = new String(cadenas, fines[i * 3 + 1], fines[i * 3 + 2] - fines[i * 3 + 1], StandardCharsets.UTF_8);
+                aeropuertos[i] = new Aeropuerto(codigo, nombre, ciudad, latitudes[i], longitudes[i]);
+                inicio = fines[i * 3 + 2];
+            }
+
+            Contenido contenido = new Contenido(aeropuertos, numeroVuelos);
+            contenido.generacion = generacion;
+            leerColumna(buffer, contenido.origenes);
+            leerColumna(buffer, contenido.destinos);
+            leerColumna(buffer, contenido.distancias);
+            leerColumna(buffer, contenido.tiempos);
+            leerColumna(buffer, contenido.costos);
+            leerColumna(buffer, contenido.demandas);
+            if (conIds) {
+                leerColumna(buffer, contenido.ids);
+            } else {
+                Arrays.fill(contenido.ids, -1);
+            }
+            for (int v = 0; v < numeroVuelos; v++) {
+                if (contenido.origenes[v] < 0 || contenido.origenes[v] >= numeroAeropuertos
+                        || contenido.destinos[v] < 0 || contenido.destinos[v] >= numeroAeropuertos) {
+                    throw new IOException("Snapshot corrupto: vuelo " + v + " con aeropuerto fuera de rango");
+                }
+            }
+            return contenido;
+        } catch (RuntimeException e) {
+            // BufferUnderflowException y similares: el archivo esta truncado o no tiene el formato esperado
+            throw new IOException("Snapshot corrupto: " + archivo.getPath(), e);
+        }
+    }
+
+    private static void leerColumna(MappedByteBuffer buffer, int[] columna) {
+        buffer.asIntBuffer().get(columna);
+        buffer.position(buffer.position() + columna.length * 4);
+    }
+
+    private static void leerColumna(MappedByteBuffer buffer, double[] columna) {
+        buffer.asDoubleBuffer().get(columna);
+        buffer.position(buffer.position() + columna.length * 8);
+    }
+}
@@ -11,12 +11,16 @@ import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
+import javafx.util.StringConverter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 public class ViewController {
+    //Sugerencias que se muestran en los ComboBox mientras se escribe
+    private static final int MAXIMO_SUGERENCIAS = 50;
 
     private SistemaDeVuelos sistema;
     private ManejadorGrafico manejadorGrafico;
@@ -40,6 +44,8 @@ public class ViewController {
 
         manejadorDialogos = new ManejadorDialogos(sistema);
         manejadorGrafico = new ManejadorGrafico(graphPane, sistema, this::handleMostrarVuelosDeAeropuerto, this::mostrarMenuContextualAeropuerto);
+        configurarFiltro(origenComboBox);
+        configurarFiltro(destinoComboBox);
 
         actualizarVistas();
         resultadoLabel.setText("Bienvenido al Sistema de Gestión de Vuelos.");
@@ -56,6 +62,46 @@ public class ViewController {
         manejadorGrafico.dibujarGrafo();
     }
 
+    //Hace editable el ComboBox y filtra sus opciones con lo que se escribe (prefijo de codigo o de ciudad),
+    //usando los indices ordenados del sistema en vez de recorrer todos los aeropuertos
+    private void configurarFiltro(ComboBox<Aeropuerto> comboBox) {
+        comboBox.setEditable(true);
+        comboBox.setConverter(new StringConverter<Aeropuerto>() {
+            @Override
+            public String toString(Aeropuerto aeropuerto) {
+                return (aeropuerto != null) ? aeropuerto.toString() : "";
+            }
+
+            @Override
+            public Aeropuerto fromString(String texto) {
+                if (texto == null || texto.trim().isEmpty()) return null;
+                Aeropuerto actual = comboBox.getValue();
+                if (actual != null && actual.toString().equals(texto)) return actual;
+                // Texto de una opcion ("Nombre (COD)"), un codigo o el inicio de un codigo o ciudad
+                int abre = texto.lastIndexOf('(');
+                int cierra = texto.lastIndexOf(')');
+                if (abre >= 0 && cierra > abre) {
+                    Aeropuerto aeropuerto = sistema.getAeropuertoPorCodigo(texto.substring(abre + 1, cierra).trim());
+                    if (aeropuerto != null) return aeropuerto;
+                }
+                Aeropuerto aeropuerto = sistema.getAeropuertoPorCodigo(texto.trim().toUpperCase(Locale.ROOT));
+                if (aeropuerto != null) return aeropuerto;
+                List<Aeropuerto> sugerencias = sistema.filtrarAeropuertos(texto, 1);
+                return sugerencias.isEmpty() ? null : sugerencias.get(0);
+            }
+        });
+        comboBox.getEditor().textProperty().addListener((observable, anterior, texto) -> {
+            Aeropuerto seleccionado = comboBox.getValue();
+            // El texto lo puso la seleccion de una opcion: no se filtra
+            if (seleccionado != null && seleccionado.toString().equals(texto)) return;
+            if (!comboBox.getEditor().isFocused()) return;
+            comboBox.getItems().setAll(sistema.filtrarAeropuertos(texto, MAXIMO_SUGERENCIAS));
+            if (!comboBox.getItems().isEmpty()) {
+                comboBox.show();
+            }
+        });
+    }
+
     @FXML
     private void handleBuscarRuta() {
         Aeropuerto origen = origenComboBox.getValue();
@@ -2,14 +2,28 @@ package proyectoaeropuerto;
 
 //representaría los arcos en el grafo
 public class Vuelo {
+    private final int id;
     private final Aeropuerto origen;
     private final Aeropuerto destino;
     private final PesoVuelo pesos;
+    //Demanda al momento de obtener el vuelo del grafo
+    private final long demanda;
 
     public Vuelo(Aeropuerto origen, Aeropuerto destino, PesoVuelo pesos) {
+        this(-1, origen, destino, pesos, 0);
+    }
+
+    public Vuelo(int id, Aeropuerto origen, Aeropuerto destino, PesoVuelo pesos, long demanda) {
+        this.id = id;
         this.origen = origen;
         this.destino = destino;
         this.pesos = pesos;
+        this.demanda = demanda;
+    }
+
+    //Id de la arista en el grafo (-1 si el vuelo no proviene del grafo)
+    public int getId() {
+        return id;
     }
     public Aeropuerto getOrigen() {
         return origen;
@@ -34,4 +48,8 @@ public class Vuelo {
     public PesoVuelo getPeso() {
         return pesos;
     }
+
+    public long getDemanda() {
+        return demanda;
+    }
 }
@@ -0,0 +1,245 @@
+package proyectoaeropuerto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+//Benchmarks de consola para el grafo de vuelos.
+//Uso: ./gradlew benchmark --args="carga [tamaños separados por coma] [vuelos por aeropuerto]"
+//     ./gradlew benchmark --args="rutas [tamaños separados por coma] [consultas] [geografica|hubs]"
+public class BenchmarkGrafo {
+    private static final long SEMILLA = 42L;
+
+    public static void main(String[] args) {
+        String modo = (args.length > 0) ? args[0] : "carga";
+        if (modo.equals("rutas")) {
+            int[] tamanos = (args.length > 1) ? parsearTamanos(args[1]) : new int[]{10_000, 50_000, 100_000};
+            int consultas = (args.length > 2) ? Integer.parseInt(args[2]) : 200;
+            boolean conHubs = (args.length > 3) && args[3].equals("hubs");
+            benchmarkRutas(tamanos, consultas, conHubs);
+        } else {
+            int[] tamanos = (args.length > 1) ? parsearTamanos(args[1]) : new int[]{1_000, 10_000, 100_000};
+            int vuelosPorAeropuerto = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+            benchmarkCarga(tamanos, vuelosPorAeropuerto);
+        }
+    }
+
+    private static void benchmarkCarga(int[] tamanos, int vuelosPorAeropuerto) {
+        // Calentamiento para que el JIT compile los caminos principales
+        medirCarga(1_000, vuelosPorAeropuerto);
+
+        System.out.println("aeropuertos | vuelos | vertices (ms) | aristas (ms) | total (ms)");
+        for (int n : tamanos) {
+            long[] tiempos = medirCarga(n, vuelosPorAeropuerto);
+            System.out.println(String.format(Locale.US, "%11d | %6d | %13.1f | %12.1f | %10.1f",
+                n, (long) n * vuelosPorAeropuerto, tiempos[0] / 1e6, tiempos[1] / 1e6, (tiempos[0] + tiempos[1]) / 1e6));
+        }
+    }
+
+    //Devuelve el tiempo en nanosegundos de insertar los vertices y las aristas
+    private static long[] medirCarga(int n, int vuelosPorAeropuerto) {
+        Aeropuerto[] aeropuertos = generarAeropuertos(n);
+        Random random = new Random(SEMILLA);
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+
+        long inicio = System.nanoTime();
+        for (Aeropuerto apt : aeropuertos) {
+            grafo.agregarVertice(apt);
+        }
+        long finVertices = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < vuelosPorAeropuerto; j++) {
+                Aeropuerto destino = aeropuertos[random.nextInt(n)];
+                // Se buscan vertices con instancias nuevas, como lo hace SistemaDeVuelos al cargar
+                grafo.agregarArista(new Aeropuerto(aeropuertos[i].getCodigoIATA(), "", ""), destino,
+                    new PesoVuelo(100 + random.nextInt(9000), 30 + random.nextInt(900), 50 + random.nextInt(1500)));
+            }
+        }
+        long finAristas = System.nanoTime();
+        return new long[]{finVertices - inicio, finAristas - finVertices};
+    }
+
+    //Compara vertices asentados y latencia de cada algoritmo de ruta mas corta sobre redes sinteticas
+    private static void benchmarkRutas(int[] tamanos, int consultas, boolean conHubs) {
+        System.out.println("aeropuertos | vuelos | algoritmo     | asentados (prom) | latencia (ms prom) | difieren");
+        for (int n : tamanos) {
+            Grafo<Aeropuerto, PesoVuelo> grafo = conHubs ? generarRedConHubs(n, new Random(SEMILLA)) : generarRedGeografica(n, new Random(SEMILLA));
+            RedCompilada red = grafo.getRedCompilada();
+            List<Aeropuerto> aeropuertos = new ArrayList<>();
+            for (Grafo.Nodo<Aeropuerto, PesoVuelo> nodo : grafo.getNodos()) {
+                aeropuertos.add(nodo.data);
+            }
+            Random random = new Random(SEMILLA + n);
+            Aeropuerto[][] pares = new Aeropuerto[consultas][2];
+            for (int i = 0; i < consultas; i++) {
+                pares[i][0] = aeropuertos.get(random.nextInt(n));
+                pares[i][1] = aeropuertos.get(random.nextInt(n));
+            }
+
+            long inicioJerarquia = System.nanoTime();
+            JerarquiaContraccion jerarquia = new JerarquiaContraccion(red, Ruta.Criterio.DISTANCIA);
+            System.out.println(String.format(Locale.US, "%11d | %6d | preprocesamiento de jerarquias: %.0f ms, %d atajos",
+                n, red.getNumeroDeAristas(), (System.nanoTime() - inicioJerarquia) / 1e6, jerarquia.getNumeroDeAtajos()));
+
+            double[] referencia = new double[consultas];
+            for (Ruta.Algoritmo algoritmo : Ruta.Algoritmo.values()) {
+                // Calentamiento con las mismas consultas
+                for (int i = 0; i < Math.min(consultas, 50); i++) {
+                    consultar(red, jerarquia, pares[i][0], pares[i][1], algoritmo);
+                }
+                long asentados = 0;
+                long tiempo = 0;
+                int difieren = 0;
+                for (int i = 0; i < consultas; i++) {
+                    long inicio = System.nanoTime();
+                    Ruta ruta = consultar(red, jerarquia, pares[i][0], pares[i][1], algoritmo);
+                    tiempo += System.nanoTime() - inicio;
+                    asentados += ContextoBusqueda.verticesAsentadosUltimaBusqueda();
+                    if (algoritmo == Ruta.Algoritmo.DIJKSTRA) {
+                        referencia[i] = ruta.getPesoTotal();
+                    } else if (Math.abs(ruta.getPesoTotal() - referencia[i]) > 1e-6) {
+                        difieren++;
+                    }
+                }
+                System.out.println(String.format(Locale.US, "%11d | %6d | %-13s | %16.0f | %18.3f | %8d",
+                    n, red.getNumeroDeAristas(), algoritmo, (double) asentados / consultas, tiempo / 1e6 / consultas, difieren));
+            }
+        }
+    }
+
+    private static Ruta consultar(RedCompilada red, JerarquiaContraccion jerarquia, Aeropuerto origen, Aeropuerto destino, Ruta.Algoritmo algoritmo) {
+        if (algoritmo == Ruta.Algoritmo.JERARQUIAS) {
+            return jerarquia.encontrarRutaMasCorta(origen, destino);
+        }
+        return red.encontrarRutaMasCorta(origen, destino, Ruta.Criterio.DISTANCIA, algoritmo);
+    }
+
+    static Aeropuerto[] generarAeropuertos(int n) {
+        Aeropuerto[] aeropuertos = new Aeropuerto[n];
+        for (int i = 0; i < n; i++) {
+            String codigo = "A" + i;
+            aeropuertos[i] = new Aeropuerto(codigo, "Aeropuerto " + codigo, "Ciudad " + codigo);
+        }
+        return aeropuertos;
+    }
+
+    //Red sintetica con aeropuertos repartidos sobre el globo: vuelos regionales hacia aeropuertos de
+    //celdas vecinas (5° x 5°) y algunos vuelos de larga distancia. Las distancias son de gran circulo.
+    static Grafo<Aeropuerto, PesoVuelo> generarRedGeografica(int n, Random random) {
+        Aeropuerto[] aeropuertos = new Aeropuerto[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        int filas = 26;
+        int columnas = 72;
+        List<List<Integer>> celdas = new ArrayList<>();
+        for (int c = 0; c < filas * columnas; c++) {
+            celdas.add(new ArrayList<>());
+        }
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = -60 + random.nextDouble() * 130;
+            longitudes[i] = -180 + random.nextDouble() * 360;
+            String codigo = "A" + i;
+            aeropuertos[i] = new Aeropuerto(codigo, "Aeropuerto " + codigo, "Ciudad " + codigo, latitudes[i], longitudes[i]);
+            celdas.get(celda(latitudes[i], longitudes[i], columnas)).add(i);
+            grafo.agregarVertice(aeropuertos[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            int fila = (int) ((latitudes[i] + 60) / 5);
+            int columna = (int) ((longitudes[i] + 180) / 5);
+            for (int j = 0; j < 4; j++) {
+                int f = Math.max(0, Math.min(filas - 1, fila + random.nextInt(3) - 1));
+                int c = Math.floorMod(columna + random.nextInt(3) - 1, columnas);
+                List<Integer> vecinos = celdas.get(f * columnas + c);
+                int destino = vecinos.isEmpty() ? random.nextInt(n) : vecinos.get(random.nextInt(vecinos.size()));
+                agregarVueloSintetico(grafo, aeropuertos, latitudes, longitudes, i, destino, random);
+            }
+            if (random.nextInt(10) == 0) {
+                agregarVueloSintetico(grafo, aeropuertos, latitudes, longitudes, i, random.nextInt(n), random);
+            }
+        }
+        return grafo;
+    }
+
+    //Red de tipo hub-and-spoke: el 2% de los aeropuertos son hubs conectados con sus 8 hubs mas cercanos
+    //(y uno al azar); el resto tiene vuelos de ida y vuelta con sus 2 hubs mas cercanos
+    static Grafo<Aeropuerto, PesoVuelo> generarRedConHubs(int n, Random random) {
+        int hubs = Math.max(4, n / 50);
+        Aeropuerto[] aeropuertos = new Aeropuerto[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = -60 + random.nextDouble() * 130;
+            longitudes[i] = -180 + random.nextDouble() * 360;
+            String codigo = "A" + i;
+            aeropuertos[i] = new Aeropuerto(codigo, "Aeropuerto " + codigo, "Ciudad " + codigo, latitudes[i], longitudes[i]);
+            grafo.agregarVertice(aeropuertos[i]);
+        }
+        for (int i = 0; i < n; i++) {
+            if (i < hubs) {
+                for (int hub : hubsCercanos(i, hubs, 8, latitudes, longitudes)) {
+                    agregarVueloSintetico(grafo, aeropuertos, latitudes, longitudes, i, hub, random);
+                }
+                agregarVueloSintetico(grafo, aeropuertos, latitudes, longitudes, i, random.nextInt(hubs), random);
+            } else {
+                for (int hub : hubsCercanos(i, hubs, 2, latitudes, longitudes)) {
+                    agregarVueloSintetico(grafo, aeropuertos, latitudes, longitudes, i, hub, random);
+                    agregarVueloSintetico(grafo, aeropuertos, latitudes, longitudes, hub, i, random);
+                }
+            }
+        }
+        return grafo;
+    }
+
+    //Los k hubs (ids 0..hubs-1) mas cercanos al aeropuerto, con una distancia aproximada (equirectangular)
+    private static int[] hubsCercanos(int aeropuerto, int hubs, int k, double[] latitudes, double[] longitudes) {
+        int[] cercanos = new int[k];
+        double[] distancias = new double[k];
+        Arrays.fill(distancias, Double.POSITIVE_INFINITY);
+        double coseno = Math.cos(Math.toRadians(latitudes[aeropuerto]));
+        for (int hub = 0; hub < hubs; hub++) {
+            if (hub == aeropuerto) continue;
+            double dLon = Math.abs(longitudes[hub] - longitudes[aeropuerto]);
+            dLon = Math.min(dLon, 360 - dLon) * coseno;
+            double dLat = latitudes[hub] - latitudes[aeropuerto];
+            double distancia = dLat * dLat + dLon * dLon;
+            // Insercion ordenada en los k mejores
+            int j = k - 1;
+            if (distancia >= distancias[j]) continue;
+            while (j > 0 && distancias[j - 1] > distancia) {
+                distancias[j] = distancias[j - 1];
+                cercanos[j] = cercanos[j - 1];
+                j--;
+            }
+            distancias[j] = distancia;
+            cercanos[j] = hub;
+        }
+        return cercanos;
+    }
+
+    private static int celda(double latitud, double longitud, int columnas) {
+        return (int) ((latitud + 60) / 5) * columnas + (int) ((longitud + 180) / 5) % columnas;
+    }
+
+    private static void agregarVueloSintetico(Grafo<Aeropuerto, PesoVuelo> grafo, Aeropuerto[] aeropuertos, double[] latitudes,
+                                              double[] longitudes, int origen, int destino, Random random) {
+        if (origen == destino) return;
+        double granCirculo = Aeropuerto.distanciaGranCirculo(latitudes[origen], longitudes[origen], latitudes[destino], longitudes[destino]);
+        int distancia = (int) Math.ceil(granCirculo * (1.0 + random.nextDouble() * 0.15));
+        int tiempo = 30 + distancia / 13;
+        double costo = Math.round(50 + distancia * 0.08);
+        grafo.agregarArista(aeropuertos[origen], aeropuertos[destino], new PesoVuelo(distancia, tiempo, costo));
+    }
+
+    private static int[] parsearTamanos(String texto) {
+        String[] partes = texto.split(",");
+        int[] tamanos = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            tamanos[i] = Integer.parseInt(partes[i].trim());
+        }
+        return tamanos;
+    }
+}
@@ -0,0 +1,74 @@
+package proyectoaeropuerto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//Dijkstra bidireccional contra Dijkstra simple sobre la misma RedCompilada
+class DijkstraBidireccionalTest {
+
+    @Test
+    void coincideConDijkstraEnRedesAlAzar() {
+        Random random = new Random(11);
+        for (int red = 0; red < 30; red++) {
+            Aeropuerto[] aeropuertos = BenchmarkGrafo.generarAeropuertos(6 + random.nextInt(15));
+            Grafo<Aeropuerto, PesoVuelo> grafo = RedesDePrueba.aleatoria(aeropuertos, 2 * aeropuertos.length, random);
+            RedCompilada compilada = grafo.getRedCompilada();
+            for (Ruta.Criterio criterio : Ruta.Criterio.values()) {
+                for (Aeropuerto origen : aeropuertos) {
+                    for (Aeropuerto destino : aeropuertos) {
+                        comparar(grafo, compilada, origen, destino, criterio);
+                    }
+                }
+            }
+        }
+    }
+
+    //Las dos busquedas se encuentran primero en M (5 + 5), pero el camino minimo es S-P-Q-T (3 + 3 + 3)
+    //y su tramo P-Q une vertices asentados por busquedas distintas: no basta con parar en el primer encuentro
+    @Test
+    void noSeDetieneEnElPrimerVerticeComun() {
+        Aeropuerto[] aeropuertos = BenchmarkGrafo.generarAeropuertos(5);
+        Aeropuerto s = aeropuertos[0], m = aeropuertos[1], p = aeropuertos[2], q = aeropuertos[3], t = aeropuertos[4];
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            grafo.agregarVertice(aeropuerto);
+        }
+        grafo.agregarArista(s, m, new PesoVuelo(5, 5, 5));
+        grafo.agregarArista(m, t, new PesoVuelo(5, 5, 5));
+        grafo.agregarArista(s, p, new PesoVuelo(3, 3, 3));
+        grafo.agregarArista(p, q, new PesoVuelo(3, 3, 3));
+        grafo.agregarArista(q, t, new PesoVuelo(3, 3, 3));
+
+        Ruta ruta = grafo.getRedCompilada().encontrarRutaMasCorta(s, t, Ruta.Criterio.DISTANCIA, Ruta.Algoritmo.BIDIRECCIONAL);
+        assertEquals(9, ruta.getPesoTotal(), RedesDePrueba.TOLERANCIA);
+        RedesDePrueba.comprobarRuta(grafo, ruta, s, t, Ruta.Criterio.DISTANCIA);
+    }
+
+    @Test
+    void sinCaminoDevuelveUnaRutaVacia() {
+        Aeropuerto[] aeropuertos = BenchmarkGrafo.generarAeropuertos(3);
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            grafo.agregarVertice(aeropuerto);
+        }
+        grafo.agregarArista(aeropuertos[0], aeropuertos[1], new PesoVuelo(1, 1, 1));
+        Ruta ruta = grafo.getRedCompilada().encontrarRutaMasCorta(aeropuertos[0], aeropuertos[2], Ruta.Criterio.TIEMPO, Ruta.Algoritmo.BIDIRECCIONAL);
+        assertTrue(ruta.getAeropuertos().isEmpty());
+        assertEquals(Double.POSITIVE_INFINITY, ruta.getPesoTotal(), 0);
+    }
+
+    private static void comparar(Grafo<Aeropuerto, PesoVuelo> grafo, RedCompilada compilada, Aeropuerto origen, Aeropuerto destino, Ruta.Criterio criterio) {
+        Ruta esperada = compilada.encontrarRutaMasCorta(origen, destino, criterio, Ruta.Algoritmo.DIJKSTRA);
+        Ruta ruta = compilada.encontrarRutaMasCorta(origen, destino, criterio, Ruta.Algoritmo.BIDIRECCIONAL);
+        String caso = origen.getCodigoIATA() + " -> " + destino.getCodigoIATA() + " por " + criterio;
+        assertEquals(esperada.getPesoTotal(), ruta.getPesoTotal(), RedesDePrueba.TOLERANCIA, caso);
+        assertEquals(esperada.getAeropuertos().isEmpty(), ruta.getAeropuertos().isEmpty(), caso);
+        if (!ruta.getAeropuertos().isEmpty()) {
+            RedesDePrueba.comprobarRuta(grafo, ruta, origen, destino, criterio);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package proyectoaeropuerto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+//Consultas sobre la jerarquia de contraccion contra Dijkstra sobre la misma RedCompilada, con la
+//contraccion completa y con la que se detiene en un nucleo
+class JerarquiaContraccionTest {
+
+    @Test
+    void coincideConDijkstraEnRedesDispersas() {
+        Random random = new Random(3);
+        for (int red = 0; red < 20; red++) {
+            Aeropuerto[] aeropuertos = BenchmarkGrafo.generarAeropuertos(10 + random.nextInt(30));
+            Grafo<Aeropuerto, PesoVuelo> grafo = RedesDePrueba.aleatoria(aeropuertos, 2 * aeropuertos.length, random);
+            for (Ruta.Criterio criterio : Ruta.Criterio.values()) {
+                compararTodosLosPares(grafo, aeropuertos, new JerarquiaContraccion(grafo.getRedCompilada(), criterio));
+            }
+        }
+    }
+
+    @Test
+    void coincideConDijkstraCuandoQuedaUnNucleo() {
+        Random random = new Random(9);
+        // En la red geografica de este tamaño contraer los ultimos vertices exige mas atajos que el limite
+        Grafo<Aeropuerto, PesoVuelo> grafo = BenchmarkGrafo.generarRedGeografica(800, random);
+        Aeropuerto[] aeropuertos = grafo.getTodosLosVuelos().stream().map(Vuelo::getOrigen).distinct().toArray(Aeropuerto[]::new);
+        for (Ruta.Criterio criterio : Ruta.Criterio.values()) {
+            JerarquiaContraccion jerarquia = new JerarquiaContraccion(grafo.getRedCompilada(), criterio);
+            assertTrue(jerarquia.getVerticesNucleo() > 0, "la contraccion deberia detenerse en un nucleo");
+            for (int i = 0; i < 400; i++) {
+                comparar(grafo, jerarquia, aeropuertos[random.nextInt(aeropuertos.length)], aeropuertos[random.nextInt(aeropuertos.length)]);
+            }
+        }
+    }
+
+    @Test
+    void coincideConDijkstraEnUnaRedConHubs() {
+        Random random = new Random(9);
+        Grafo<Aeropuerto, PesoVuelo> grafo = BenchmarkGrafo.generarRedConHubs(800, random);
+        Aeropuerto[] aeropuertos = grafo.getTodosLosVuelos().stream().map(Vuelo::getOrigen).distinct().toArray(Aeropuerto[]::new);
+        JerarquiaContraccion jerarquia = new JerarquiaContraccion(grafo.getRedCompilada(), Ruta.Criterio.DISTANCIA);
+        for (int i = 0; i < 400; i++) {
+            comparar(grafo, jerarquia, aeropuertos[random.nextInt(aeropuertos.length)], aeropuertos[random.nextInt(aeropuertos.length)]);
+        }
+    }
+
+    @Test
+    void sinCaminoDevuelveUnaRutaVacia() {
+        Aeropuerto[] aeropuertos = BenchmarkGrafo.generarAeropuertos(3);
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            grafo.agregarVertice(aeropuerto);
+        }
+        grafo.agregarArista(aeropuertos[0], aeropuertos[1], new PesoVuelo(1, 1, 1));
+        JerarquiaContraccion jerarquia = new JerarquiaContraccion(grafo.getRedCompilada(), Ruta.Criterio.COSTO);
+        Ruta ruta = jerarquia.encontrarRutaMasCorta(aeropuertos[1], aeropuertos[0]);
+        assertTrue(ruta.getAeropuertos().isEmpty());
+        assertEquals(Double.POSITIVE_INFINITY, ruta.getPesoTotal(), 0);
+    }
+
+    private static void compararTodosLosPares(Grafo<Aeropuerto, PesoVuelo> grafo, Aeropuerto[] aeropuertos, JerarquiaContraccion jerarquia) {
+        for (Aeropuerto origen : aeropuertos) {
+            for (Aeropuerto destino : aeropuertos) {
+                comparar(grafo, jerarquia, origen, destino);
+            }
+        }
+    }
+
+    private static void comparar(Grafo<Aeropuerto, PesoVuelo> grafo, JerarquiaContraccion jerarquia, Aeropuerto origen, Aeropuerto destino) {
+        Ruta.Criterio criterio = jerarquia.getCriterio();
+        Ruta esperada = grafo.getRedCompilada().encontrarRutaMasCorta(origen, destino, criterio, Ruta.Algoritmo.DIJKSTRA);
+        Ruta ruta = jerarquia.encontrarRutaMasCorta(origen, destino);
+        String caso = origen.getCodigoIATA() + " -> " + destino.getCodigoIATA() + " por " + criterio;
+        assertEquals(esperada.getPesoTotal(), ruta.getPesoTotal(), RedesDePrueba.TOLERANCIA, caso);
+        assertEquals(esperada.getAeropuertos().isEmpty(), ruta.getAeropuertos().isEmpty(), caso);
+        if (!ruta.getAeropuertos().isEmpty()) {
+            // Los atajos se tienen que desplegar en los vuelos originales
+            RedesDePrueba.comprobarRuta(grafo, ruta, origen, destino, criterio);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package proyectoaeropuerto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.List;
+import java.util.Random;
+
+//Redes pequeñas al azar y comprobaciones comunes de los tests de busqueda de rutas
+final class RedesDePrueba {
+    static final double TOLERANCIA = 1e-6;
+
+    private RedesDePrueba() {
+    }
+
+    //Red de n aeropuertos (A0..An-1) con vuelos al azar; puede tener vuelos paralelos y de un aeropuerto a si mismo
+    static Grafo<Aeropuerto, PesoVuelo> aleatoria(Aeropuerto[] aeropuertos, int vuelos, Random random) {
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            grafo.agregarVertice(aeropuerto);
+        }
+        for (int i = 0; i < vuelos; i++) {
+            Aeropuerto origen = aeropuertos[random.nextInt(aeropuertos.length)];
+            Aeropuerto destino = aeropuertos[random.nextInt(aeropuertos.length)];
+            grafo.agregarArista(origen, destino, new PesoVuelo(1 + random.nextInt(100), 1 + random.nextInt(100), 1 + random.nextInt(10_000) / 100.0));
+        }
+        return grafo;
+    }
+
+    static double peso(Vuelo vuelo, Ruta.Criterio criterio) {
+        switch (criterio) {
+            case TIEMPO: return vuelo.getTiempo();
+            case COSTO: return vuelo.getCosto();
+            default: return vuelo.getDistancia();
+        }
+    }
+
+    //La ruta va de origen a destino por vuelos existentes, tramo a tramo, y su peso es la suma de los tramos
+    static void comprobarRuta(Grafo<Aeropuerto, PesoVuelo> grafo, Ruta ruta, Aeropuerto origen, Aeropuerto destino, Ruta.Criterio criterio) {
+        List<Aeropuerto> aeropuertos = ruta.getAeropuertos();
+        int[] ids = ruta.getIdsVuelos();
+        assertEquals(origen, aeropuertos.get(0));
+        assertEquals(destino, aeropuertos.get(aeropuertos.size() - 1));
+        assertEquals(aeropuertos.size() - 1, ids.length, "un vuelo por tramo");
+        double total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Vuelo vuelo = grafo.getVuelo(ids[i]);
+            assertNotNull(vuelo, "vuelo " + ids[i]);
+            assertEquals(aeropuertos.get(i), vuelo.getOrigen());
+            assertEquals(aeropuertos.get(i + 1), vuelo.getDestino());
+            total += peso(vuelo, criterio);
+        }
+        assertEquals(total, ruta.getPesoTotal(), TOLERANCIA);
+    }
+}
@@ -0,0 +1,97 @@
+package proyectoaeropuerto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+//Yen (RedCompilada.encontrarRutasAlternativas) contra la enumeracion de todos los caminos sin ciclos
+class RutasAlternativasTest {
+    private static final int RUTAS = 12;
+
+    @Test
+    void coincideConLaEnumeracionDeCaminosEnRedesAlAzar() {
+        Random random = new Random(7);
+        for (int red = 0; red < 40; red++) {
+            Aeropuerto[] aeropuertos = BenchmarkGrafo.generarAeropuertos(5 + random.nextInt(4));
+            Grafo<Aeropuerto, PesoVuelo> grafo = RedesDePrueba.aleatoria(aeropuertos, 3 * aeropuertos.length, random);
+            RedCompilada compilada = grafo.getRedCompilada();
+            for (Ruta.Criterio criterio : Ruta.Criterio.values()) {
+                Aeropuerto origen = aeropuertos[random.nextInt(aeropuertos.length)];
+                Aeropuerto destino = aeropuertos[random.nextInt(aeropuertos.length)];
+                if (origen.equals(destino)) continue;
+
+                List<Ruta> rutas = compilada.encontrarRutasAlternativas(origen, destino, criterio, RUTAS);
+                List<Double> esperados = pesosDeTodosLosCaminos(grafo, aeropuertos, origen, destino, criterio);
+                assertEquals(Math.min(RUTAS, esperados.size()), rutas.size(), "rutas de " + origen + " a " + destino);
+
+                Set<List<Aeropuerto>> distintas = new HashSet<>();
+                for (int i = 0; i < rutas.size(); i++) {
+                    Ruta ruta = rutas.get(i);
+                    RedesDePrueba.comprobarRuta(grafo, ruta, origen, destino, criterio);
+                    assertEquals(ruta.getAeropuertos().size(), new HashSet<>(ruta.getAeropuertos()).size(), "ruta sin ciclos");
+                    assertTrue(distintas.add(ruta.getAeropuertos()), "rutas repetidas");
+                    // Ante empates Yen puede elegir otro camino, pero los pesos tienen que ser los k menores
+                    assertEquals(esperados.get(i), ruta.getPesoTotal(), RedesDePrueba.TOLERANCIA);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sinCaminoNoDevuelveRutas() {
+        Aeropuerto[] aeropuertos = BenchmarkGrafo.generarAeropuertos(3);
+        Grafo<Aeropuerto, PesoVuelo> grafo = new Grafo<>();
+        for (Aeropuerto aeropuerto : aeropuertos) {
+            grafo.agregarVertice(aeropuerto);
+        }
+        grafo.agregarArista(aeropuertos[1], aeropuertos[0], new PesoVuelo(1, 1, 1));
+        List<Ruta> rutas = grafo.getRedCompilada().encontrarRutasAlternativas(aeropuertos[0], aeropuertos[1], Ruta.Criterio.DISTANCIA, 3);
+        assertTrue(rutas.isEmpty());
+    }
+
+    //Pesos de todos los caminos sin ciclos de origen a destino, de menor a mayor. Entre dos aeropuertos
+    //cuenta solo el vuelo mas liviano: las rutas se distinguen por sus aeropuertos
+    private static List<Double> pesosDeTodosLosCaminos(Grafo<Aeropuerto, PesoVuelo> grafo, Aeropuerto[] aeropuertos,
+                                                       Aeropuerto origen, Aeropuerto destino, Ruta.Criterio criterio) {
+        int n = aeropuertos.length;
+        double[][] tramo = new double[n][n];
+        for (double[] fila : tramo) {
+            Arrays.fill(fila, Double.POSITIVE_INFINITY);
+        }
+        List<Aeropuerto> indices = Arrays.asList(aeropuertos);
+        for (Vuelo vuelo : grafo.getTodosLosVuelos()) {
+            int i = indices.indexOf(vuelo.getOrigen());
+            int j = indices.indexOf(vuelo.getDestino());
+            tramo[i][j] = Math.min(tramo[i][j], RedesDePrueba.peso(vuelo, criterio));
+        }
+        List<Double> pesos = new ArrayList<>();
+        boolean[] visitado = new boolean[n];
+        visitado[indices.indexOf(origen)] = true;
+        recorrer(tramo, visitado, indices.indexOf(origen), indices.indexOf(destino), 0, pesos);
+        Collections.sort(pesos);
+        return pesos;
+    }
+
+    private static void recorrer(double[][] tramo, boolean[] visitado, int actual, int destino, double peso, List<Double> pesos) {
+        if (actual == destino) {
+            pesos.add(peso);
+            return;
+        }
+        for (int siguiente = 0; siguiente < tramo.length; siguiente++) {
+            if (!visitado[siguiente] && tramo[actual][siguiente] != Double.POSITIVE_INFINITY) {
+                visitado[siguiente] = true;
+                recorrer(tramo, visitado, siguiente, destino, peso + tramo[actual][siguiente], pesos);
+                visitado[siguiente] = false;
+            }
+        }
+    }
+}
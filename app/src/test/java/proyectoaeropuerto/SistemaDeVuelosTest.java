@@ -0,0 +1,234 @@
+package proyectoaeropuerto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+//Persistencia del sistema (snapshots rotados y diario) y escrituras anidadas y concurrentes sobre el
+//StampedLock. Cada test usa su propio directorio de datos, cargado al principio con datos_vuelos.csv
+class SistemaDeVuelosTest {
+    private static final Duration LIMITE = Duration.ofSeconds(30);
+
+    @TempDir
+    File directorio;
+
+    private final List<SistemaDeVuelos> abiertos = new ArrayList<>();
+
+    @AfterEach
+    void cerrarSistemas() {
+        for (SistemaDeVuelos sistema : abiertos) {
+            sistema.detenerSinGuardar();
+        }
+    }
+
+    @Test
+    void reaplicaElDiarioConUnaUltimaLineaCortada() throws IOException {
+        SistemaDeVuelos sistema = abrir();
+        sistema.guardarEstado();
+        sistema.agregarAeropuerto("ZZA", "Zeta", "Zetaciudad");
+        sistema.agregarVuelo("JFK", "ZZA", 100, 20, 30.0, 0);
+        sistema.agregarVuelo("ZZA", "JFK", 100, 20, 30.0, 0);
+        sistema.detenerSinGuardar();
+
+        // Cierre abrupto a mitad del ultimo registro: sin su final ni el salto de linea
+        File diario = new File(directorio, "datos_adicionales.diario");
+        String contenido = new String(Files.readAllBytes(diario.toPath()), StandardCharsets.UTF_8);
+        int corte = contenido.lastIndexOf("+VUELO,ZZA,") + "+VUELO,ZZA,J".length();
+        try (RandomAccessFile archivo = new RandomAccessFile(diario, "rw")) {
+            archivo.setLength(contenido.substring(0, corte).getBytes(StandardCharsets.UTF_8).length);
+        }
+
+        SistemaDeVuelos reabierto = abrir();
+        assertNotNull(reabierto.getAeropuertoPorCodigo("ZZA"));
+        assertEquals(1, contar(reabierto, "JFK", "ZZA"));
+        assertEquals(0, contar(reabierto, "ZZA", "JFK"));
+
+        // Lo que se registre despues no puede quedar pegado a la linea cortada
+        reabierto.agregarAeropuerto("ZZB", "Zeta B", "Zetaciudad");
+        reabierto.detenerSinGuardar();
+        List<String> esperado = estado(reabierto);
+        assertEquals(esperado, estado(abrir()));
+    }
+
+    @Test
+    void recuperaElSnapshotAnteriorSiElUltimoEstaDañado() throws IOException {
+        SistemaDeVuelos sistema = abrir();
+        sistema.agregarAeropuerto("ZZA", "Zeta", "Zetaciudad");
+        sistema.guardarEstado();
+        sistema.agregarAeropuerto("ZZB", "Zeta B", "Zetaciudad");
+        sistema.buscarRutaMasCorta("JFK", "LHR", Ruta.Criterio.DISTANCIA, Ruta.Algoritmo.DIJKSTRA);
+        sistema.guardarEstado();
+        // Cambios solo en el diario del ultimo snapshot
+        sistema.agregarVuelo("ZZA", "ZZB", 100, 20, 30.0, 4);
+        sistema.detenerSinGuardar();
+        List<String> esperado = estado(sistema);
+
+        File snapshot = new File(directorio, "datos_adicionales.bin");
+        corromper(snapshot);
+
+        SistemaDeVuelos recuperado = abrir();
+        assertEquals(esperado, estado(recuperado));
+        assertFalse(snapshot.exists());
+        assertTrue(new File(directorio, "datos_adicionales.bin.corrupto").exists());
+
+        // El siguiente snapshot se escribe sobre el hueco del dañado, sin rotar la copia valida
+        recuperado.guardarEstado();
+        assertEquals(esperado, estado(abrir()));
+    }
+
+    @Test
+    void conservaLasCopiasRotadasConSusDiarios() throws IOException {
+        SistemaDeVuelos sistema = abrir();
+        for (int i = 0; i < 4; i++) {
+            sistema.agregarAeropuerto("ZZ" + i, "Zeta " + i, "Zetaciudad");
+            sistema.agregarVuelo("JFK", "ZZ" + i, 100 + i, 20, 30.0, i);
+            sistema.guardarEstado();
+        }
+        sistema.detenerSinGuardar();
+        List<String> esperado = estado(sistema);
+
+        File snapshot = new File(directorio, "datos_adicionales.bin");
+        assertTrue(SnapshotBinario.copia(snapshot, 2).exists());
+        assertFalse(SnapshotBinario.copia(snapshot, 3).exists());
+        assertFalse(new File(directorio, "datos_adicionales.diario.3").exists());
+
+        // Desde la copia mas antigua se llega al mismo estado reaplicando los diarios de las siguientes
+        corromper(SnapshotBinario.copia(snapshot, 0));
+        corromper(SnapshotBinario.copia(snapshot, 1));
+        assertEquals(esperado, estado(abrir()));
+    }
+
+    //Reaplicar el diario e importar un CSV llaman a escrituras publicas con el cerrojo de escritura tomado
+    @Test
+    void lasEscriturasAnidadasNoSeBloquean() throws IOException {
+        SistemaDeVuelos sistema = abrir();
+        sistema.guardarEstado();
+        sistema.agregarAeropuerto("ZZA", "Zeta", "Zetaciudad");
+        sistema.agregarVuelo("JFK", "ZZA", 100, 20, 30.0, 0);
+        sistema.detenerSinGuardar();
+
+        File csv = new File(directorio, "importar.csv");
+        Files.write(csv.toPath(), List.of("AEROPUERTO,ZZB,Zeta B,Zetaciudad", "VUELO,ZZA,ZZB,100,20,30.0"), StandardCharsets.UTF_8);
+        SistemaDeVuelos reabierto = assertTimeoutPreemptively(LIMITE, () -> {
+            SistemaDeVuelos otro = abrir();
+            otro.importarCSV(csv);
+            otro.agregarVuelo("ZZB", "JFK", 100, 20, 30.0, 0);
+            return otro;
+        });
+        assertEquals(1, contar(reabierto, "JFK", "ZZA"));
+        assertEquals(1, contar(reabierto, "ZZA", "ZZB"));
+        assertEquals(1, contar(reabierto, "ZZB", "JFK"));
+    }
+
+    //Busquedas que suman demanda (y llegan a compactar) mientras otro hilo agrega y elimina vuelos
+    @Test
+    void lecturasYEscriturasConcurrentes() throws Exception {
+        SistemaDeVuelos sistema = abrir();
+        List<String> codigos = new ArrayList<>();
+        for (Aeropuerto aeropuerto : sistema.getTodosLosAeropuertos()) {
+            codigos.add(aeropuerto.getCodigoIATA());
+        }
+        Queue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        ExecutorService hilos = Executors.newFixedThreadPool(5);
+        for (int h = 0; h < 4; h++) {
+            Random random = new Random(h);
+            hilos.execute(() -> {
+                try {
+                    for (int i = 0; i < 400; i++) {
+                        Ruta.Algoritmo algoritmo = Ruta.Algoritmo.values()[random.nextInt(Ruta.Algoritmo.values().length)];
+                        sistema.buscarRutaMasCorta(codigos.get(random.nextInt(codigos.size())), codigos.get(random.nextInt(codigos.size())),
+                            Ruta.Criterio.values()[random.nextInt(Ruta.Criterio.values().length)], algoritmo);
+                    }
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            });
+        }
+        hilos.execute(() -> {
+            try {
+                Random random = new Random(99);
+                for (int i = 0; i < 200; i++) {
+                    String origen = codigos.get(random.nextInt(codigos.size()));
+                    String destino = codigos.get(random.nextInt(codigos.size()));
+                    sistema.agregarVuelo(origen, destino, 100 + i, 20, 30.0, 0);
+                    List<Vuelo> vuelos = sistema.getVuelosDeAeropuerto(origen);
+                    sistema.eliminarVuelo(vuelos.get(random.nextInt(vuelos.size())));
+                }
+            } catch (Throwable e) {
+                errores.add(e);
+            }
+        });
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(LIMITE.getSeconds(), TimeUnit.SECONDS), "las busquedas o las escrituras se bloquearon");
+        assertTrue(errores.isEmpty(), () -> "errores: " + errores);
+
+        sistema.detenerSinGuardar();
+        assertEquals(estado(sistema), estado(abrir()));
+    }
+
+    private SistemaDeVuelos abrir() {
+        // Sin espera entre cambios: cada uno se escribe en cuanto llega
+        SistemaDeVuelos sistema = new SistemaDeVuelos(directorio, 0, 1);
+        // Cargar y reaplicar el diario anidan escrituras: si el cerrojo no lo admite, se bloquea aqui
+        assertTimeoutPreemptively(LIMITE, sistema::cargarDatosDesdeArchivos);
+        abiertos.add(sistema);
+        return sistema;
+    }
+
+    //Aeropuertos y vuelos (con su id y su demanda) en un orden fijo, para comparar dos cargas
+    private static List<String> estado(SistemaDeVuelos sistema) {
+        List<String> lineas = new ArrayList<>();
+        for (Aeropuerto aeropuerto : sistema.getTodosLosAeropuertos()) {
+            lineas.add(aeropuerto.getCodigoIATA() + "," + aeropuerto.getNombre() + "," + aeropuerto.getCiudad());
+        }
+        List<String> vuelos = new ArrayList<>();
+        for (Vuelo vuelo : sistema.getTodosLosVuelos()) {
+            vuelos.add(vuelo.getId() + "," + vuelo.getOrigen().getCodigoIATA() + "," + vuelo.getDestino().getCodigoIATA() + ","
+                + vuelo.getDistancia() + "," + vuelo.getTiempo() + "," + vuelo.getCosto() + "," + vuelo.getDemanda());
+        }
+        Collections.sort(vuelos);
+        lineas.addAll(vuelos);
+        return lineas;
+    }
+
+    private static long contar(SistemaDeVuelos sistema, String origen, String destino) {
+        return sistema.getVuelosDeAeropuerto(origen).stream()
+            .filter(vuelo -> vuelo.getDestino().getCodigoIATA().equals(destino))
+            .count();
+    }
+
+    //Invierte unos bytes del medio: el archivo sigue completo pero su CRC ya no coincide
+    private static void corromper(File archivo) throws IOException {
+        try (RandomAccessFile datos = new RandomAccessFile(archivo, "rw")) {
+            long medio = datos.length() / 2;
+            for (long i = medio; i < medio + 8; i++) {
+                datos.seek(i);
+                int octeto = datos.read();
+                datos.seek(i);
+                datos.write(~octeto);
+            }
+        }
+    }
+}